@@ -0,0 +1,79 @@
+package com.chatapp.backend.admin.analytics.controller;
+
+import com.chatapp.backend.admin.analytics.dto.DailyActiveUsers;
+import com.chatapp.backend.admin.analytics.dto.HourlyMessageCount;
+import com.chatapp.backend.admin.analytics.dto.RoomMessageCount;
+import com.chatapp.backend.admin.analytics.service.AnalyticsService;
+import com.chatapp.backend.common.annotations.ApiResponseGroups;
+import com.chatapp.backend.common.constants.AppConstants;
+import com.chatapp.backend.common.constants.HttpStatusCodes;
+import com.chatapp.backend.common.constants.MessageConstants;
+import com.chatapp.backend.common.dto.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping(AppConstants.ADMIN_ANALYTICS_PATH)
+@Tag(name = "Admin Analytics", description = "Admin APIs for message volume and activity statistics, served from rollup tables")
+@SecurityRequirement(name = "Bearer Authentication")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class AdminAnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    @GetMapping("/messages/hourly")
+    @Operation(summary = "Hourly message volume", description = "Messages per hour in [from, to), optionally for a single room - Admin only")
+    @ApiResponseGroups.AdminAuthResponses
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Successfully retrieved hourly message counts")
+    public ResponseEntity<ApiResponse<List<HourlyMessageCount>>> getHourlyMessages(
+            @Parameter(description = "Start (inclusive)", example = "2025-01-01T00:00:00") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End (exclusive)", example = "2025-01-02T00:00:00") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Room ID, omit for all rooms") @RequestParam(required = false) UUID roomId) {
+        List<HourlyMessageCount> counts = analyticsService.hourlyMessages(from, to, roomId);
+        return ResponseEntity.ok(ApiResponse.success(counts, MessageConstants.ANALYTICS_RETRIEVED));
+    }
+
+    @GetMapping("/messages/top-rooms")
+    @Operation(summary = "Most active rooms", description = "Rooms with the most messages in [from, to); direct messages are grouped under the nil UUID - Admin only")
+    @ApiResponseGroups.AdminAuthResponses
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Successfully retrieved top rooms")
+    public ResponseEntity<ApiResponse<List<RoomMessageCount>>> getTopRooms(
+            @Parameter(description = "Start (inclusive)", example = "2025-01-01T00:00:00") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End (exclusive)", example = "2025-01-08T00:00:00") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Number of rooms (max 100)", example = "10") @RequestParam(defaultValue = "10") int limit) {
+        List<RoomMessageCount> rooms = analyticsService.topRooms(from, to, limit);
+        return ResponseEntity.ok(ApiResponse.success(rooms, MessageConstants.ANALYTICS_RETRIEVED));
+    }
+
+    @GetMapping("/active-users/daily")
+    @Operation(summary = "Daily active users", description = "Distinct message senders per day in [from, to] - Admin only")
+    @ApiResponseGroups.AdminAuthResponses
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Successfully retrieved daily active users")
+    public ResponseEntity<ApiResponse<List<DailyActiveUsers>>> getDailyActiveUsers(
+            @Parameter(description = "First day (inclusive)", example = "2025-01-01") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (inclusive)", example = "2025-01-31") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        List<DailyActiveUsers> days = analyticsService.dailyActiveUsers(from, to);
+        return ResponseEntity.ok(ApiResponse.success(days, MessageConstants.ANALYTICS_RETRIEVED));
+    }
+
+    @GetMapping("/status")
+    @Operation(summary = "Rollup freshness", description = "Point in time up to which messages have been rolled up - Admin only")
+    @ApiResponseGroups.AdminAuthResponses
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Successfully retrieved rollup status")
+    public ResponseEntity<ApiResponse<LocalDateTime>> getRollupStatus() {
+        return ResponseEntity.ok(ApiResponse.success(analyticsService.processedUntil(), MessageConstants.ANALYTICS_RETRIEVED));
+    }
+}
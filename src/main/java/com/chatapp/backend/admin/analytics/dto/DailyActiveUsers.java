@@ -0,0 +1,23 @@
+package com.chatapp.backend.admin.analytics.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Users who sent at least one message on a day")
+public class DailyActiveUsers {
+    
+    @Schema(description = "Day", example = "2025-01-31")
+    private LocalDate day;
+    
+    @Schema(description = "Distinct active users", example = "420")
+    private long activeUsers;
+}
@@ -0,0 +1,23 @@
+package com.chatapp.backend.admin.analytics.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Messages sent in one hour")
+public class HourlyMessageCount {
+    
+    @Schema(description = "Start of the hour")
+    private LocalDateTime hour;
+    
+    @Schema(description = "Messages sent during the hour", example = "1234")
+    private long messages;
+}
@@ -0,0 +1,23 @@
+package com.chatapp.backend.admin.analytics.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Messages sent to one room over a period")
+public class RoomMessageCount {
+    
+    @Schema(description = "Room ID; nil UUID groups all direct messages", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID roomId;
+    
+    @Schema(description = "Messages sent during the period", example = "5678")
+    private long messages;
+}
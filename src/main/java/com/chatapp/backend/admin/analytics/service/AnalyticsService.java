@@ -0,0 +1,94 @@
+package com.chatapp.backend.admin.analytics.service;
+
+import com.chatapp.backend.admin.analytics.dto.DailyActiveUsers;
+import com.chatapp.backend.admin.analytics.dto.HourlyMessageCount;
+import com.chatapp.backend.admin.analytics.dto.RoomMessageCount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Thống kê cho admin, chỉ đọc từ các bảng rollup (không truy vấn messages).
+ * Số liệu trễ tối đa một chu kỳ job cộng lag của MessageRollupJob; xem processedUntil().
+ */
+@Service
+@RequiredArgsConstructor
+public class AnalyticsService {
+
+    private static final Duration MAX_HOURLY_RANGE = Duration.ofDays(93);
+    private static final int MAX_TOP_ROOMS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Số tin nhắn theo giờ trong [from, to); roomId null thì cộng mọi room
+     */
+    public List<HourlyMessageCount> hourlyMessages(LocalDateTime from, LocalDateTime to, UUID roomId) {
+        validateRange(from, to);
+        if (Duration.between(from, to).compareTo(MAX_HOURLY_RANGE) > 0) {
+            throw new RuntimeException("Khoảng thời gian tối đa " + MAX_HOURLY_RANGE.toDays() + " ngày");
+        }
+
+        if (roomId != null) {
+            return jdbcTemplate.query(
+                    "SELECT bucket_hour, message_count FROM message_hourly_rollups " +
+                    "WHERE room_id = ? AND bucket_hour >= ? AND bucket_hour < ? ORDER BY bucket_hour",
+                    (rs, rowNum) -> new HourlyMessageCount(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)),
+                    roomId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        }
+        return jdbcTemplate.query(
+                "SELECT bucket_hour, SUM(message_count) FROM message_hourly_rollups " +
+                "WHERE bucket_hour >= ? AND bucket_hour < ? GROUP BY bucket_hour ORDER BY bucket_hour",
+                (rs, rowNum) -> new HourlyMessageCount(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Các room nhiều tin nhắn nhất trong [from, to)
+     */
+    public List<RoomMessageCount> topRooms(LocalDateTime from, LocalDateTime to, int limit) {
+        validateRange(from, to);
+        return jdbcTemplate.query(
+                "SELECT room_id, SUM(message_count) AS total FROM message_hourly_rollups " +
+                "WHERE bucket_hour >= ? AND bucket_hour < ? GROUP BY room_id ORDER BY total DESC LIMIT ?",
+                (rs, rowNum) -> new RoomMessageCount(rs.getObject(1, UUID.class), rs.getLong(2)),
+                Timestamp.valueOf(from), Timestamp.valueOf(to), Math.min(Math.max(limit, 1), MAX_TOP_ROOMS));
+    }
+
+    /**
+     * Số user hoạt động theo ngày trong [from, to]
+     */
+    public List<DailyActiveUsers> dailyActiveUsers(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("Thời điểm kết thúc phải sau thời điểm bắt đầu");
+        }
+        return jdbcTemplate.query(
+                "SELECT day, COUNT(*) FROM daily_active_users WHERE day BETWEEN ? AND ? GROUP BY day ORDER BY day",
+                (rs, rowNum) -> new DailyActiveUsers(rs.getDate(1).toLocalDate(), rs.getLong(2)),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Mốc dữ liệu rollup đã bao phủ tới; null nếu job chưa chạy lần nào
+     */
+    public LocalDateTime processedUntil() {
+        List<Timestamp> watermark = jdbcTemplate.queryForList(
+                "SELECT processed_until FROM rollup_watermarks WHERE name = ?",
+                Timestamp.class, MessageRollupJob.WATERMARK_NAME);
+        return watermark.isEmpty() ? null : watermark.get(0).toLocalDateTime();
+    }
+
+    private static void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            throw new RuntimeException("Thời điểm kết thúc phải sau thời điểm bắt đầu");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.chatapp.backend.admin.analytics.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cập nhật tăng dần các bảng rollup từ messages theo watermark created_at.
+ *
+ * Mỗi lần chạy chỉ quét cửa sổ [watermark, now - lag) qua index created_at, cộng dồn vào
+ * message_hourly_rollups và daily_active_users rồi dời watermark, tất cả trong một
+ * transaction nên chạy lại sau lỗi không đếm trùng. Lag chừa thời gian cho transaction
+ * ghi tin nhắn commit muộn hơn created_at. Dòng watermark được khóa bằng
+ * FOR UPDATE SKIP LOCKED nên khi chạy nhiều instance chỉ một instance xử lý mỗi lượt.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MessageRollupJob {
+
+    public static final String WATERMARK_NAME = "messages";
+    public static final UUID DIRECT_MESSAGES_ROOM_ID = new UUID(0L, 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${chat.analytics.rollup-lag-ms:60000}")
+    private long lagMillis;
+
+    @Value("${chat.analytics.rollup-max-window-hours:24}")
+    private long maxWindowHours;
+
+    @Scheduled(fixedDelayString = "${chat.analytics.rollup-interval-ms:60000}",
+            initialDelayString = "${chat.analytics.rollup-interval-ms:60000}")
+    @Transactional
+    public void run() {
+        LocalDateTime from = lockWatermark();
+        if (from == null) {
+            return;
+        }
+
+        LocalDateTime safeUntil = LocalDateTime.now().minus(lagMillis, ChronoUnit.MILLIS);
+        // Giới hạn cửa sổ để lần backfill đầu tiên không thành một transaction khổng lồ
+        LocalDateTime to = from.plusHours(maxWindowHours).isBefore(safeUntil) ? from.plusHours(maxWindowHours) : safeUntil;
+        if (!to.isAfter(from)) {
+            return;
+        }
+
+        int hourlyRows = jdbcTemplate.update(
+                "INSERT INTO message_hourly_rollups (bucket_hour, room_id, message_count) " +
+                "SELECT date_trunc('hour', created_at), COALESCE(room_id, ?), COUNT(*) FROM messages " +
+                "WHERE created_at >= ? AND created_at < ? GROUP BY 1, 2 " +
+                "ON CONFLICT (bucket_hour, room_id) DO UPDATE " +
+                "SET message_count = message_hourly_rollups.message_count + EXCLUDED.message_count",
+                DIRECT_MESSAGES_ROOM_ID, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        int activeRows = jdbcTemplate.update(
+                "INSERT INTO daily_active_users (day, user_id) " +
+                "SELECT DISTINCT CAST(created_at AS DATE), sender_id FROM messages " +
+                "WHERE created_at >= ? AND created_at < ? " +
+                "ON CONFLICT DO NOTHING",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.update("UPDATE rollup_watermarks SET processed_until = ? WHERE name = ?",
+                Timestamp.valueOf(to), WATERMARK_NAME);
+
+        log.debug("Rolled up messages [{}, {}): {} hourly rows, {} new daily actives", from, to, hourlyRows, activeRows);
+    }
+
+    /**
+     * Khóa và trả về watermark; null nếu instance khác đang giữ khóa.
+     * Lần đầu khởi tạo watermark từ tin nhắn cũ nhất để backfill dần.
+     */
+    private LocalDateTime lockWatermark() {
+        jdbcTemplate.update(
+                "INSERT INTO rollup_watermarks (name, processed_until) " +
+                "SELECT ?, COALESCE(date_trunc('hour', MIN(created_at)), date_trunc('hour', CURRENT_TIMESTAMP)) FROM messages " +
+                "ON CONFLICT (name) DO NOTHING",
+                WATERMARK_NAME);
+        List<Timestamp> locked = jdbcTemplate.queryForList(
+                "SELECT processed_until FROM rollup_watermarks WHERE name = ? FOR UPDATE SKIP LOCKED",
+                Timestamp.class, WATERMARK_NAME);
+        return locked.isEmpty() ? null : locked.get(0).toLocalDateTime();
+    }
+}
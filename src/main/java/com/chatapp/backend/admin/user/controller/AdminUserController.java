@@ -1,9 +1,13 @@
 package com.chatapp.backend.admin.user.controller;
 
+import com.chatapp.backend.admin.user.dto.BulkImportRequest;
+import com.chatapp.backend.admin.user.dto.BulkImportResponse;
 import com.chatapp.backend.admin.user.dto.CreateUserRequest;
 import com.chatapp.backend.admin.user.dto.UpdateUserRequest;
 import com.chatapp.backend.admin.user.dto.UserDto;
 import com.chatapp.backend.admin.user.service.AdminUserService;
+import com.chatapp.backend.admin.user.service.UserExportService;
+import com.chatapp.backend.admin.user.service.UserImportService;
 import com.chatapp.backend.common.annotations.ApiResponseGroups;
 import com.chatapp.backend.common.constants.AppConstants;
 import com.chatapp.backend.common.constants.HttpStatusCodes;
@@ -14,14 +18,19 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -34,9 +43,11 @@ import java.util.UUID;
 public class AdminUserController {
     
     private final AdminUserService adminUserService;
+    private final UserExportService userExportService;
+    private final UserImportService userImportService;
     
     @GetMapping
-    @Operation(summary = "Get all users", description = "Retrieve list of all users in the system - Admin only")
+    @Operation(summary = "Get all users", description = "Retrieve list of all users in the system - Admin only. Prefer /export or /paginated for large user bases")
     @ApiResponseGroups.AdminAuthResponses
     @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Successfully retrieved users")
     public ResponseEntity<ApiResponse<List<UserDto>>> getAllUsers() {
@@ -44,6 +55,23 @@ public class AdminUserController {
         return ResponseEntity.ok(ApiResponse.success(users, MessageConstants.USERS_RETRIEVED));
     }
     
+    @GetMapping("/export")
+    @Operation(summary = "Export all users", description = "Stream every user as NDJSON or CSV with constant memory - Admin only")
+    @ApiResponseGroups.AdminAuthResponses
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Users streamed successfully")
+    public void exportUsers(
+            @Parameter(description = "Export format (NDJSON/CSV)", example = "NDJSON") @RequestParam(defaultValue = "NDJSON") UserExportService.Format format,
+            HttpServletResponse response) throws IOException {
+        String extension = format == UserExportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType(format == UserExportService.Format.CSV ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("users-" + LocalDate.now() + "." + extension)
+                .build()
+                .toString());
+        userExportService.export(format, response.getOutputStream());
+    }
+    
     @GetMapping("/paginated")
     @Operation(summary = "Get paginated users", description = "Retrieve paginated list of users with sorting and pagination - Admin only")
     @ApiResponseGroups.AdminAuthResponses
@@ -78,6 +106,15 @@ public class AdminUserController {
                 .body(ApiResponse.created(createdUser, MessageConstants.USER_CREATED));
     }
     
+    @PostMapping("/import")
+    @Operation(summary = "Bulk import users", description = "Create many users at once and return a per-row report - Admin only")
+    @ApiResponseGroups.AdminCreateResponses
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Import finished, see per-row results")
+    public ResponseEntity<ApiResponse<BulkImportResponse>> importUsers(@Valid @RequestBody BulkImportRequest request) {
+        BulkImportResponse report = userImportService.importUsers(request);
+        return ResponseEntity.ok(ApiResponse.success(report, MessageConstants.USERS_IMPORTED));
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Update user", description = "Update existing user information - Admin only")
     @ApiResponseGroups.AdminUpdateResponses
@@ -0,0 +1,22 @@
+package com.chatapp.backend.admin.user.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request to create many users at once; each row is validated independently")
+public class BulkImportRequest {
+    
+    @NotEmpty(message = "Users are required")
+    @Schema(description = "Users to create")
+    private List<CreateUserRequest> users;
+}
@@ -0,0 +1,58 @@
+package com.chatapp.backend.admin.user.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Bulk import report")
+public class BulkImportResponse {
+    
+    @Schema(description = "Number of users created", example = "980")
+    private int created;
+    
+    @Schema(description = "Number of rows rejected", example = "20")
+    private int failed;
+    
+    @Schema(description = "Result of each row, in request order")
+    private List<RowResult> results;
+    
+    public enum Status {
+        CREATED,
+        INVALID,
+        DUPLICATE_IN_REQUEST,
+        USERNAME_EXISTS,
+        EMAIL_EXISTS,
+        CONFLICT
+    }
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Result of one imported row")
+    public static class RowResult {
+        @Schema(description = "Row index in the request (0-based)", example = "0")
+        private int index;
+        
+        @Schema(description = "Username of the row", example = "john_doe")
+        private String username;
+        
+        @Schema(description = "Row status", example = "CREATED")
+        private Status status;
+        
+        @Schema(description = "ID of the created user", example = "123e4567-e89b-12d3-a456-426614174000")
+        private UUID id;
+        
+        @Schema(description = "Why the row was rejected")
+        private String message;
+    }
+}
@@ -3,6 +3,7 @@ package com.chatapp.backend.admin.user.service;
 import com.chatapp.backend.admin.user.dto.CreateUserRequest;
 import com.chatapp.backend.admin.user.dto.UpdateUserRequest;
 import com.chatapp.backend.admin.user.dto.UserDto;
+import com.chatapp.backend.auth.service.TokenRevocationService;
 import com.chatapp.backend.common.constants.MessageConstants;
 import com.chatapp.backend.common.exception.UserNotFoundException;
 import com.chatapp.backend.user.entity.Role;
@@ -15,6 +16,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
@@ -26,6 +28,7 @@ public class AdminUserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationService tokenRevocationService;
     
     public List<UserDto> getAllUsers() {
         return userRepository.findAll().stream()
@@ -51,31 +54,44 @@ public class AdminUserService {
         return mapToDto(savedUser);
     }
     
+    // Thay đổi user và mốc thu hồi token commit cùng nhau
+    @Transactional
     public UserDto updateUser(UUID id, UpdateUserRequest request) {
         User user = findUserById(id);
+        Role previousRole = user.getRole();
         updateUserFields(user, request);
         User updatedUser = userRepository.save(user);
+        // Role nằm trong token, đổi role hoặc mật khẩu thì thu hồi các token đã phát hành
+        if (previousRole != updatedUser.getRole() || request.getPassword() != null) {
+            tokenRevocationService.revokeAll(id);
+        }
         return mapToDto(updatedUser);
     }
     
+    @Transactional
     public void deleteUser(UUID id) {
         if (!userRepository.existsById(id)) {
             throw new UserNotFoundException(id);
         }
         userRepository.deleteById(id);
+        tokenRevocationService.revokeAll(id);
     }
     
+    @Transactional
     public UserDto promoteToAdmin(UUID id) {
         User user = findUserById(id);
         user.setRole(Role.ADMIN);
         User updatedUser = userRepository.save(user);
+        tokenRevocationService.revokeAll(id);
         return mapToDto(updatedUser);
     }
     
+    @Transactional
     public UserDto demoteToUser(UUID id) {
         User user = findUserById(id);
         user.setRole(Role.USER);
         User updatedUser = userRepository.save(user);
+        tokenRevocationService.revokeAll(id);
         return mapToDto(updatedUser);
     }
     
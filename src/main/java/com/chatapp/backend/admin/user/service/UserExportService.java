@@ -0,0 +1,178 @@
+package com.chatapp.backend.admin.user.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Xuất toàn bộ user ra NDJSON hoặc CSV, ghi thẳng vào response.
+ *
+ * Dữ liệu đọc bằng cursor forward-only của PostgreSQL: driver chỉ stream theo fetchSize
+ * khi autocommit tắt, nên truy vấn chạy trong một transaction read-only. Mỗi dòng được
+ * ghi ra ngay khi đọc, bộ nhớ không phụ thuộc số user.
+ *
+ * Trong CSV, các field do user nhập (username, email, avatar) được trung hòa công thức vì file
+ * thường được mở bằng bảng tính. NDJSON là định dạng cho máy đọc nên giữ nguyên giá trị.
+ */
+@Service
+public class UserExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    // Không xuất password
+    private static final String EXPORT_SQL =
+            "SELECT id, username, email, avatar, role, created_at, updated_at FROM users";
+    private static final String CSV_HEADER = "id,username,email,avatar,role,created_at,updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    // Không đóng response stream khi đóng generator, container tự quản lý
+    private final JsonFactory jsonFactory = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    public UserExportService(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${chat.admin.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Ghi toàn bộ user ra output theo định dạng chọn, trả về số dòng đã ghi
+     */
+    public long export(Format format, OutputStream output) throws IOException {
+        try {
+            Long rows = readOnlyTransaction.execute(status -> switch (format) {
+                case NDJSON -> writeNdjson(output);
+                case CSV -> writeCsv(output);
+            });
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            // Client ngắt kết nối giữa chừng: transaction read-only rollback, không có gì phải dọn
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(OutputStream output) {
+        try (JsonGenerator generator = jsonFactory.createGenerator(output, JsonEncoding.UTF8)) {
+            // Mỗi object một dòng, không có mảng bao ngoài
+            generator.setRootValueSeparator(null);
+            long[] rows = {0};
+            jdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) rs -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeStringField("id", rs.getString("id"));
+                    generator.writeStringField("username", rs.getString("username"));
+                    generator.writeStringField("email", rs.getString("email"));
+                    generator.writeStringField("avatar", rs.getString("avatar"));
+                    generator.writeStringField("role", rs.getString("role"));
+                    generator.writeStringField("createdAt", timestamp(rs, "created_at"));
+                    generator.writeStringField("updatedAt", timestamp(rs, "updated_at"));
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return rows[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long writeCsv(OutputStream output) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            long[] rows = {0};
+            jdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(rs.getString("id"));
+                    writer.write(',');
+                    writeCsvField(writer, neutralizeFormula(rs.getString("username")));
+                    writer.write(',');
+                    writeCsvField(writer, neutralizeFormula(rs.getString("email")));
+                    writer.write(',');
+                    writeCsvField(writer, neutralizeFormula(rs.getString("avatar")));
+                    writer.write(',');
+                    writer.write(rs.getString("role"));
+                    writer.write(',');
+                    writeCsvField(writer, timestamp(rs, "created_at"));
+                    writer.write(',');
+                    writeCsvField(writer, timestamp(rs, "updated_at"));
+                    writer.write('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            return rows[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // RFC 4180: bao trong dấu nháy khi có dấu phẩy, nháy kép hoặc xuống dòng
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // Chặn CSV/formula injection khi file được mở bằng Excel/Sheets: ô do user nhập bắt đầu bằng
+    // = + - @ (hoặc tab, CR) được thêm dấu ' ở đầu để hiển thị như text thay vì công thức
+    private static String neutralizeFormula(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            return "'" + value;
+        }
+        return value;
+    }
+
+    private static String timestamp(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value != null ? value.toLocalDateTime().toString() : null;
+    }
+}
@@ -1,9 +1,13 @@
 package com.chatapp.backend.auth.config;
 
+import com.chatapp.backend.auth.crypto.BoundedPasswordEncoder;
 import com.chatapp.backend.auth.jwt.JwtAuthenticationFilter;
+import com.chatapp.backend.common.ratelimit.RateLimitFilter;
 import com.chatapp.backend.common.constants.AppConstants;
 import com.chatapp.backend.user.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -15,7 +19,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -30,7 +33,22 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final UserService userService;
+    private final MeterRegistry meterRegistry;
+    
+    // BCrypt: cost và pool thread riêng cho hash mật khẩu
+    @Value("${chat.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    @Value("${chat.password.hash-threads:0}")
+    private int hashThreads;
+    
+    @Value("${chat.password.queue-capacity:64}")
+    private int hashQueueCapacity;
+    
+    @Value("${chat.password.max-wait-ms:2000}")
+    private long hashMaxWaitMillis;
     
     // Public paths that don't require authentication
     private static final String[] PUBLIC_PATHS = {
@@ -68,7 +86,9 @@ public class SecurityConfig {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Sau JWT filter để giới hạn theo user đã xác thực
+                .addFilterAfter(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
@@ -78,6 +98,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Hash lại mật khẩu sau khi đăng nhập thành công nếu cost cấu hình đã đổi
+        authProvider.setUserDetailsPasswordService(userService);
         return authProvider;
     }
     
@@ -88,7 +110,7 @@ public class SecurityConfig {
     
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(bcryptStrength, hashThreads, hashQueueCapacity, hashMaxWaitMillis, meterRegistry);
     }
     
     @Bean
@@ -30,6 +30,7 @@ public class AuthenticationController {
     @PostMapping("/register")
     @Operation(summary = "Register a new user", description = "Create a new user account with username, email, and password")
     @ApiResponseGroups.AuthResponses
+    @ApiResponseGroups.TooManyRequestsResponse
     @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.CREATED, description = "User registered successfully")
     public ResponseEntity<ApiResponse<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
         AuthResponse authResponse = authenticationService.register(request);
@@ -40,6 +41,7 @@ public class AuthenticationController {
     @PostMapping("/login")
     @Operation(summary = "Login user", description = "Authenticate user with username/email and password")
     @ApiResponseGroups.AuthResponses
+    @ApiResponseGroups.TooManyRequestsResponse
     @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "User logged in successfully")
     public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
         AuthResponse authResponse = authenticationService.login(request);
@@ -49,9 +51,19 @@ public class AuthenticationController {
     @PostMapping("/refresh")
     @Operation(summary = "Refresh access token", description = "Get new access token using refresh token")
     @ApiResponseGroups.AuthResponses
+    @ApiResponseGroups.TooManyRequestsResponse
     @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Token refreshed successfully")
     public ResponseEntity<ApiResponse<AuthResponse>> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
         AuthResponse authResponse = authenticationService.refreshToken(request);
         return ResponseEntity.ok(ApiResponse.success(authResponse, MessageConstants.AUTH_REFRESH_SUCCESS));
     }
+    
+    @PostMapping("/logout")
+    @Operation(summary = "Logout", description = "Revoke the refresh token family and every access token issued from it")
+    @ApiResponseGroups.AuthResponses
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Logged out successfully")
+    public ResponseEntity<ApiResponse<Void>> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        authenticationService.logout(request);
+        return ResponseEntity.ok(ApiResponse.success(null, MessageConstants.AUTH_LOGOUT_SUCCESS));
+    }
 }
@@ -0,0 +1,57 @@
+package com.chatapp.backend.auth.crypto;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Hash hàng loạt mật khẩu trên ForkJoinPool riêng, dùng cho import nhiều user.
+ *
+ * Không đi qua BoundedPasswordEncoder: hàng đợi nhỏ của pool đó dành cho login/register
+ * và sẽ từ chối ngay khi nhận hàng nghìn task. Pool này mặc định chỉ dùng nửa số core
+ * để import không chiếm hết CPU của luồng đăng nhập. Cost BCrypt giống cấu hình chung.
+ */
+@Component
+public class ParallelPasswordHasher implements DisposableBean {
+
+    private final BCryptPasswordEncoder encoder;
+    private final ForkJoinPool pool;
+
+    public ParallelPasswordHasher(@Value("${chat.password.bcrypt-strength:10}") int strength,
+                                  @Value("${chat.admin.import.hash-parallelism:0}") int parallelism) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Hash theo đúng thứ tự đầu vào
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        try {
+            // parallelStream() chạy bên trong task của pool thì dùng chính pool đó
+            return pool.submit(() -> rawPasswords.parallelStream()
+                    .map(encoder::encode)
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị gián đoạn khi hash mật khẩu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Hash mật khẩu thất bại", e.getCause());
+        }
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,32 @@
+package com.chatapp.backend.auth.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Mốc thu hồi token của một user: token phát hành trước revokedBefore không còn hợp lệ
+ */
+@Entity
+@Table(name = "token_revocations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+    
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+    
+    @Column(name = "revoked_before", nullable = false)
+    private LocalDateTime revokedBefore;
+}
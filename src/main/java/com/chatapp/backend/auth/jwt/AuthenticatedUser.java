@@ -0,0 +1,24 @@
+package com.chatapp.backend.auth.jwt;
+
+import com.chatapp.backend.user.entity.Role;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Principal bất biến cho một connection WebSocket, được tạo một lần khi CONNECT.
+ *
+ * getName() trả về userId để /user/{userId}/... và convertAndSendToUser dùng trực tiếp.
+ */
+public record AuthenticatedUser(UUID userId, String username, Role role, Instant expiresAt) implements Principal {
+
+    @Override
+    public String getName() {
+        return userId.toString();
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
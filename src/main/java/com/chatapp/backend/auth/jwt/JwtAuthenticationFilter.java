@@ -1,6 +1,9 @@
 package com.chatapp.backend.auth.jwt;
 
+import com.chatapp.backend.auth.security.RevokedFamilyRegistry;
+import com.chatapp.backend.auth.service.TokenRevocationService;
 import com.chatapp.backend.common.constants.AppConstants;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
@@ -13,14 +16,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -28,7 +31,8 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RevokedFamilyRegistry revokedFamilies;
     
     @Override
     protected void doFilterInternal(
@@ -47,22 +51,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             jwt = authHeader.substring(AppConstants.BEARER_PREFIX.length());
-            username = jwtService.extractUsername(jwt);
+            // Parse (hoặc lấy từ cache) một lần, dùng lại claims cho bước kiểm tra
+            Claims claims = jwtService.extractAllClaims(jwt);
+            username = claims.getSubject();
             
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-                
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+            // Token có claim uid/role: principal dựng từ claims, không tra database
+            AuthenticatedUser principal = jwtService.toAuthenticatedUser(claims);
+            if (jwtService.isRefreshToken(claims)) {
+                // Refresh token chỉ dùng cho /auth/refresh và /auth/logout, không xác thực request
+                log.warn("Refresh token used as access token");
+            } else if (principal != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                if (tokenRevocationService.isRevoked(principal.userId(), claims.getIssuedAt())
+                        || revokedFamilies.isRevoked(jwtService.familyId(claims))) {
+                    log.warn("Revoked JWT token for user {}", principal.userId());
+                } else {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            principal,
                             null,
-                            userDetails.getAuthorities()
+                            List.of(new SimpleGrantedAuthority("ROLE_" + principal.role().name()))
                     );
                     authToken.setDetails(
                             new WebAuthenticationDetailsSource().buildDetails(request)
                     );
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
+            } else if (principal == null) {
+                // Token phát hành trước khi có claim uid/role (kể cả refresh token cũ không có typ):
+                // không xác thực, request nhận 401 và client đăng nhập lại
+                log.warn("Rejected legacy JWT token without uid/role claims for {}", username);
             }
         } catch (ExpiredJwtException e) {
             log.warn("JWT token expired: {}", e.getMessage());
@@ -1,80 +1,205 @@
 package com.chatapp.backend.auth.jwt;
 
+import com.chatapp.backend.user.entity.Role;
+import com.chatapp.backend.user.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.function.Function;
 
+/**
+ * Tạo và xác thực JWT.
+ *
+ * Khóa ký và parser được dựng một lần khi khởi động. Access token đã verify được cache
+ * (khóa là SHA-256 của token, LRU giới hạn số entry, hết hạn theo claim exp) để request lặp lại
+ * với cùng token bỏ qua bước verify chữ ký và parse JSON. Cache chỉ giữ các claim bất biến;
+ * mỗi lần trúng cache trả về một Claims mới nên người gọi không sửa được bản dùng chung.
+ */
 @Service
 public class JwtService {
-    
+
+    // Claim userId và role: dựng principal trực tiếp từ token, không tra database
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+
+    // Loại token và họ refresh token (fid); refresh token còn có jti để xoay vòng
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+    public static final String FAMILY_ID_CLAIM = "fid";
+    public static final String TOKEN_TYPE_ACCESS = "access";
+    public static final String TOKEN_TYPE_REFRESH = "refresh";
+
+    // Token chỉ được cache khi mọi claim đều nằm trong VerifiedToken
+    private static final Set<String> CACHED_CLAIMS = Set.of(Claims.SUBJECT, Claims.ISSUED_AT, Claims.EXPIRATION,
+            USER_ID_CLAIM, ROLE_CLAIM, TOKEN_TYPE_CLAIM, FAMILY_ID_CLAIM);
+
     @Value("${jwt.secret}")
     private String secretKey;
-    
+
     @Value("${jwt.expiration}")
     private long jwtExpiration;
-    
+
     @Value("${jwt.refresh-expiration}")
     private long refreshExpiration;
-    
+
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private int verifiedCacheMaxSize;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    private Key signingKey;
+    private JwtParser parser;
+    // null khi tắt cache (max-size = 0)
+    private Cache<TokenHash, VerifiedToken> verifiedTokens;
+
+    public JwtService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.cacheHits = Counter.builder("chat.jwt.verified.cache").tag("result", "hit").register(meterRegistry);
+        this.cacheMisses = Counter.builder("chat.jwt.verified.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        // JwtParser bất biến và thread-safe nên dùng chung cho mọi request
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+
+        if (verifiedCacheMaxSize > 0) {
+            this.verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(verifiedCacheMaxSize)
+                    .expireAfter(Expiry.creating((TokenHash key, VerifiedToken token) ->
+                            Duration.ofMillis(Math.max(0, token.expiresAtMillis() - System.currentTimeMillis()))))
+                    .build();
+            Gauge.builder("chat.jwt.verified.cache.size", verifiedTokens, Cache::estimatedSize).register(meterRegistry);
+        }
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
-    
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
-    
+
+    public String generateToken(User user) {
+        return buildToken(userClaims(user), user.getUsername(), jwtExpiration);
+    }
+
+    /**
+     * Access token thuộc một họ refresh token: thu hồi họ thì access token cũng bị từ chối
+     */
+    public String generateToken(User user, UUID familyId) {
+        Map<String, Object> claims = userClaims(user);
+        claims.put(TOKEN_TYPE_CLAIM, TOKEN_TYPE_ACCESS);
+        claims.put(FAMILY_ID_CLAIM, familyId.toString());
+        return buildToken(claims, user.getUsername(), jwtExpiration);
+    }
+
+    public String generateRefreshToken(User user, UUID familyId, UUID tokenId) {
+        Map<String, Object> claims = userClaims(user);
+        claims.put(TOKEN_TYPE_CLAIM, TOKEN_TYPE_REFRESH);
+        claims.put(FAMILY_ID_CLAIM, familyId.toString());
+        claims.put(Claims.ID, tokenId.toString());
+        return buildToken(claims, user.getUsername(), refreshExpiration);
+    }
+
+    public boolean isRefreshToken(Claims claims) {
+        return TOKEN_TYPE_REFRESH.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
+    }
+
+    // null với token phát hành trước khi có họ token
+    public UUID familyId(Claims claims) {
+        String familyId = claims.get(FAMILY_ID_CLAIM, String.class);
+        return familyId != null ? UUID.fromString(familyId) : null;
+    }
+
+    /**
+     * Principal dựng từ claims đã verify; null với token cũ không có claim uid/role
+     */
+    public AuthenticatedUser toAuthenticatedUser(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        return new AuthenticatedUser(
+                UUID.fromString(userId),
+                claims.getSubject(),
+                Role.valueOf(role),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null
+        );
+    }
+
+    private Map<String, Object> userClaims(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId().toString());
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        return claims;
+    }
+
     public String generateToken(UserDetails userDetails) {
         return generateToken(new HashMap<>(), userDetails);
     }
-    
+
     public String generateToken(String username) {
         return generateToken(new HashMap<>(), username);
     }
-    
+
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
-    
+
     public String generateToken(Map<String, Object> extraClaims, String username) {
         return buildToken(extraClaims, username, jwtExpiration);
     }
-    
+
     public String generateRefreshToken(UserDetails userDetails) {
         return buildToken(new HashMap<>(), userDetails, refreshExpiration);
     }
-    
+
     public String generateRefreshToken(String username) {
         return buildToken(new HashMap<>(), username, refreshExpiration);
     }
-    
+
     private String buildToken(
             Map<String, Object> extraClaims,
             UserDetails userDetails,
             long expiration
     ) {
-        return Jwts
-                .builder()
-                .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
-                .compact();
+        return buildToken(extraClaims, userDetails.getUsername(), expiration);
     }
-    
+
     private String buildToken(
             Map<String, Object> extraClaims,
             String username,
@@ -86,34 +211,97 @@ public class JwtService {
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
-    
+
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
     }
-    
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+
+    /**
+     * Kiểm tra claims đã parse, tránh parse token thêm lần nữa
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        String username = claims.getSubject();
+        return username != null
+                && username.equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date());
     }
-    
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+
+    /**
+     * Verify chữ ký và trả về claims. Access token hợp lệ được cache tới thời điểm exp;
+     * token lỗi hoặc hết hạn vẫn ném exception của jjwt như trước. Refresh token chỉ dùng
+     * một lần nên không được cache.
+     */
+    public Claims extractAllClaims(String token) {
+        if (verifiedTokens == null || token == null) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+
+        TokenHash key = TokenHash.of(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached.toClaims();
+        }
+
+        cacheMisses.increment();
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null && !isRefreshToken(claims) && CACHED_CLAIMS.containsAll(claims.keySet())) {
+            verifiedTokens.put(key, VerifiedToken.of(claims));
+        }
+        return claims;
     }
-    
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+
+    /**
+     * Các claim bất biến của access token đã verify; không giữ đối tượng Claims (mutable)
+     */
+    private record VerifiedToken(String subject, String userId, String role, String type, String familyId,
+                                 long issuedAtMillis, long expiresAtMillis) {
+
+        private static VerifiedToken of(Claims claims) {
+            return new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get(USER_ID_CLAIM, String.class),
+                    claims.get(ROLE_CLAIM, String.class),
+                    claims.get(TOKEN_TYPE_CLAIM, String.class),
+                    claims.get(FAMILY_ID_CLAIM, String.class),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : -1,
+                    claims.getExpiration().getTime()
+            );
+        }
+
+        private Claims toClaims() {
+            Claims claims = Jwts.claims().setSubject(subject).setExpiration(new Date(expiresAtMillis));
+            if (issuedAtMillis >= 0) {
+                claims.setIssuedAt(new Date(issuedAtMillis));
+            }
+            putIfNotNull(claims, USER_ID_CLAIM, userId);
+            putIfNotNull(claims, ROLE_CLAIM, role);
+            putIfNotNull(claims, TOKEN_TYPE_CLAIM, type);
+            putIfNotNull(claims, FAMILY_ID_CLAIM, familyId);
+            return claims;
+        }
+
+        private static void putIfNotNull(Claims claims, String name, String value) {
+            if (value != null) {
+                claims.put(name, value);
+            }
+        }
+    }
+
+    // SHA-256 của token: cache không giữ chuỗi token gốc trong bộ nhớ
+    private record TokenHash(long h0, long h1, long h2, long h3) {
+
+        private static TokenHash of(String token) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+                ByteBuffer buffer = ByteBuffer.wrap(digest);
+                return new TokenHash(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 không khả dụng", e);
+            }
+        }
     }
 }
@@ -0,0 +1,56 @@
+package com.chatapp.backend.auth.repository;
+
+import com.chatapp.backend.auth.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    // id do ứng dụng sinh (jti) nên insert trực tiếp, tránh save() SELECT trước để merge
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO refresh_tokens (id, family_id, user_id, expires_at) " +
+                   "VALUES (:id, :familyId, :userId, :expiresAt)", nativeQuery = true)
+    int insert(@Param("id") UUID id,
+               @Param("familyId") UUID familyId,
+               @Param("userId") UUID userId,
+               @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Đánh dấu token đã xoay; 0 dòng nghĩa là token đã dùng, đã thu hồi hoặc không tồn tại
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE refresh_tokens SET used_at = :now " +
+                   "WHERE id = :id AND used_at IS NULL AND revoked_at IS NULL AND expires_at > :now", nativeQuery = true)
+    int markUsed(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE refresh_tokens SET revoked_at = :now WHERE family_id = :familyId AND revoked_at IS NULL",
+           nativeQuery = true)
+    int revokeFamily(@Param("familyId") UUID familyId, @Param("now") LocalDateTime now);
+
+    // Thu hồi mọi họ của user (đổi role, mật khẩu, xóa user)
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE refresh_tokens SET revoked_at = :now WHERE user_id = :userId AND revoked_at IS NULL",
+           nativeQuery = true)
+    int revokeUser(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    // Họ bị thu hồi sau mốc since (nạp khi khởi động và đồng bộ giữa các instance)
+    @Query(value = "SELECT DISTINCT family_id FROM refresh_tokens WHERE revoked_at > :since", nativeQuery = true)
+    List<UUID> findFamilyIdsRevokedAfter(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_tokens WHERE expires_at < :before", nativeQuery = true)
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
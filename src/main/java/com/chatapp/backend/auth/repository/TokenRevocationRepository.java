@@ -0,0 +1,34 @@
+package com.chatapp.backend.auth.repository;
+
+import com.chatapp.backend.auth.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, UUID> {
+    
+    // Các mốc thu hồi còn ảnh hưởng tới token chưa hết hạn
+    List<TokenRevocation> findByRevokedBeforeAfter(LocalDateTime since);
+    
+    // Upsert mốc thu hồi, chỉ tiến về phía trước
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO token_revocations (user_id, revoked_before) VALUES (:userId, :revokedBefore) " +
+                   "ON CONFLICT (user_id) DO UPDATE SET revoked_before = EXCLUDED.revoked_before " +
+                   "WHERE token_revocations.revoked_before < EXCLUDED.revoked_before", nativeQuery = true)
+    int revoke(@Param("userId") UUID userId, @Param("revokedBefore") LocalDateTime revokedBefore);
+    
+    // Mốc cũ hơn thời hạn access token không còn tác dụng
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM token_revocations WHERE revoked_before < :before", nativeQuery = true)
+    int deleteRevokedBefore(@Param("before") LocalDateTime before);
+}
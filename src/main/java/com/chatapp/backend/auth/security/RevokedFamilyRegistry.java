@@ -0,0 +1,99 @@
+package com.chatapp.backend.auth.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Họ token (claim fid) đã bị thu hồi, giữ hoàn toàn trong bộ nhớ để request filter
+ * kiểm tra mà không cần truy vấn database.
+ *
+ * Bloom filter trả lời nhanh trường hợp phổ biến "chưa bị thu hồi"; khi bloom báo
+ * có thể bị thu hồi thì tra map chính xác để loại false positive. Mỗi họ chỉ cần giữ
+ * tới khi access token cuối cùng của họ hết hạn, sau đó purgeExpired() bỏ đi và dựng
+ * lại bloom.
+ */
+@Component
+public class RevokedFamilyRegistry {
+
+    private static final int DEFAULT_EXPECTED_FAMILIES = 10_000;
+    private static final double DEFAULT_FPP = 0.01;
+
+    // familyId -> thời điểm (epoch ms) có thể bỏ khỏi danh sách
+    private final Map<UUID, Long> revoked = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Counter bloomFalsePositives;
+
+    @Value("${chat.auth.revoked-families.expected:10000}")
+    private int expectedFamilies = DEFAULT_EXPECTED_FAMILIES;
+
+    @Value("${chat.auth.revoked-families.fpp:0.01}")
+    private double fpp = DEFAULT_FPP;
+
+    private volatile UuidBloomFilter bloom = new UuidBloomFilter(DEFAULT_EXPECTED_FAMILIES, DEFAULT_FPP);
+    private volatile int bloomCapacity = DEFAULT_EXPECTED_FAMILIES;
+
+    public RevokedFamilyRegistry(MeterRegistry meterRegistry) {
+        this.bloomFalsePositives = Counter.builder("chat.auth.revoked.families.bloom.false-positive")
+                .register(meterRegistry);
+        meterRegistry.gauge("chat.auth.revoked.families", revoked, Map::size);
+    }
+
+    @PostConstruct
+    void init() {
+        synchronized (writeLock) {
+            rebuild(expectedFamilies);
+        }
+    }
+
+    public boolean isRevoked(UUID familyId) {
+        if (familyId == null || !bloom.mightContain(familyId)) {
+            return false;
+        }
+        if (revoked.containsKey(familyId)) {
+            return true;
+        }
+        bloomFalsePositives.increment();
+        return false;
+    }
+
+    public void revoke(UUID familyId, long retainUntilMillis) {
+        // Ghi và dựng lại bloom cùng một khóa để không mất phần tử khi đang thay bloom
+        synchronized (writeLock) {
+            revoked.merge(familyId, retainUntilMillis, Math::max);
+            if (revoked.size() > bloomCapacity) {
+                rebuild(revoked.size() * 2);
+            } else {
+                bloom.add(familyId);
+            }
+        }
+    }
+
+    /**
+     * Bỏ các họ mà mọi access token đã hết hạn, rồi dựng lại bloom cho gọn
+     */
+    public void purgeExpired(long nowMillis) {
+        synchronized (writeLock) {
+            if (revoked.values().removeIf(retainUntil -> retainUntil <= nowMillis)) {
+                rebuild(Math.max(expectedFamilies, revoked.size() * 2));
+            }
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void rebuild(int capacity) {
+        UuidBloomFilter next = new UuidBloomFilter(capacity, fpp);
+        revoked.keySet().forEach(next::add);
+        bloomCapacity = capacity;
+        bloom = next;
+    }
+}
@@ -0,0 +1,43 @@
+package com.chatapp.backend.auth.security;
+
+import com.chatapp.backend.user.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * UserDetails bọc entity User đã nạp khi xác thực, để login dựng AuthResponse
+ * từ principal mà không phải truy vấn user thêm lần nữa.
+ */
+public class UserAccountDetails implements UserDetails {
+
+    private final User user;
+    private final List<GrantedAuthority> authorities;
+
+    public UserAccountDetails(User user) {
+        this.user = user;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return user.getPassword();
+    }
+
+    @Override
+    public String getUsername() {
+        return user.getUsername();
+    }
+}
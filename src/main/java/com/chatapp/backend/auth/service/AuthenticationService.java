@@ -4,19 +4,21 @@ import com.chatapp.backend.auth.dto.AuthResponse;
 import com.chatapp.backend.auth.dto.LoginRequest;
 import com.chatapp.backend.auth.dto.RegisterRequest;
 import com.chatapp.backend.auth.dto.RefreshTokenRequest;
+import com.chatapp.backend.auth.jwt.AuthenticatedUser;
 import com.chatapp.backend.auth.jwt.JwtService;
+import com.chatapp.backend.auth.security.UserAccountDetails;
 import com.chatapp.backend.common.constants.MessageConstants;
 import com.chatapp.backend.user.entity.Role;
 import com.chatapp.backend.user.entity.User;
 import com.chatapp.backend.user.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
-
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
@@ -25,6 +27,8 @@ public class AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
     
     public AuthResponse register(RegisterRequest request) {
         // Check if user already exists
@@ -47,73 +51,48 @@ public class AuthenticationService {
         
         userRepository.save(user);
         
-        // Generate tokens
-        String accessToken = jwtService.generateToken(user.getUsername());
-        String refreshToken = jwtService.generateRefreshToken(user.getUsername());
-        
-        return AuthResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
-                .user(AuthResponse.UserInfo.builder()
-                        .id(user.getId())
-                        .username(user.getUsername())
-                        .email(user.getEmail())
-                        .avatar(user.getAvatar())
-                        .role(user.getRole())
-                        .build())
-                .build();
+        return buildAuthResponse(user, refreshTokenService.startFamily(user));
     }
     
     public AuthResponse login(LoginRequest request) {
-        // Authenticate user
-        authenticationManager.authenticate(
+        // Authenticate user; principal đã mang entity User được nạp bởi UserService
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getUsernameOrEmail(),
                         request.getPassword()
                 )
         );
         
-        // Get user details
-        User user = userRepository.findByUsername(request.getUsernameOrEmail())
-                .orElseGet(() -> userRepository.findByEmail(request.getUsernameOrEmail())
-                        .orElseThrow(() -> new RuntimeException("User not found")));
-        
-        // Generate tokens
-        String accessToken = jwtService.generateToken(user.getUsername());
-        String refreshToken = jwtService.generateRefreshToken(user.getUsername());
-        
-        return AuthResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
-                .user(AuthResponse.UserInfo.builder()
-                        .id(user.getId())
-                        .username(user.getUsername())
-                        .email(user.getEmail())
-                        .avatar(user.getAvatar())
-                        .role(user.getRole())
-                        .build())
-                .build();
+        User user = ((UserAccountDetails) authentication.getPrincipal()).getUser();
+        return buildAuthResponse(user, refreshTokenService.startFamily(user));
     }
     
     public AuthResponse refreshToken(RefreshTokenRequest request) {
-        // Validate refresh token and get username
-        String username = jwtService.extractUsername(request.getRefreshToken());
-        
-        if (username == null) {
+        // Chỉ chấp nhận refresh token có họ và jti; access token hoặc token cũ bị từ chối
+        Claims claims = jwtService.extractAllClaims(request.getRefreshToken());
+        AuthenticatedUser principal = jwtService.toAuthenticatedUser(claims);
+        if (principal == null || !jwtService.isRefreshToken(claims)) {
             throw new RuntimeException("Invalid refresh token");
         }
         
-        // Get user details
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (tokenRevocationService.isRevoked(principal.userId(), claims.getIssuedAt())) {
+            throw new RuntimeException("Refresh token đã bị thu hồi");
+        }
         
-        // Generate new tokens
-        String accessToken = jwtService.generateToken(user.getUsername());
-        String refreshToken = jwtService.generateRefreshToken(user.getUsername());
+        User user = userRepository.findById(principal.userId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
         
+        return buildAuthResponse(user, refreshTokenService.rotate(claims, user));
+    }
+    
+    public void logout(RefreshTokenRequest request) {
+        refreshTokenService.logout(jwtService.extractAllClaims(request.getRefreshToken()));
+    }
+    
+    private AuthResponse buildAuthResponse(User user, RefreshTokenService.IssuedTokens tokens) {
         return AuthResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
+                .accessToken(tokens.accessToken())
+                .refreshToken(tokens.refreshToken())
                 .user(AuthResponse.UserInfo.builder()
                         .id(user.getId())
                         .username(user.getUsername())
@@ -0,0 +1,159 @@
+package com.chatapp.backend.auth.service;
+
+import com.chatapp.backend.auth.entity.RefreshToken;
+import com.chatapp.backend.auth.jwt.JwtService;
+import com.chatapp.backend.auth.repository.RefreshTokenRepository;
+import com.chatapp.backend.auth.security.RevokedFamilyRegistry;
+import com.chatapp.backend.user.entity.User;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Phát hành và xoay vòng refresh token theo họ.
+ *
+ * Mỗi lần đăng nhập mở một họ mới. Refresh đánh dấu token hiện tại đã dùng (UPDATE có
+ * điều kiện, nên hai request đồng thời chỉ một bên thắng) rồi phát token kế tiếp cùng họ,
+ * hai bước trong cùng một transaction: phát token lỗi thì token cũ chưa bị tiêu.
+ * Token đã xoay mà bị dùng lại nghĩa là nó đã lộ: cả họ bị thu hồi, kể cả access token
+ * đang lưu hành, thông qua RevokedFamilyRegistry.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtService jwtService;
+    private final RevokedFamilyRegistry revokedFamilies;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${jwt.expiration}")
+    private long jwtExpiration;
+
+    @Value("${jwt.refresh-expiration}")
+    private long refreshExpiration;
+
+    // Mốc đã đồng bộ danh sách họ bị thu hồi từ database
+    private volatile LocalDateTime revocationsSyncedAt;
+
+    public record IssuedTokens(String accessToken, String refreshToken) {
+    }
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               JwtService jwtService,
+                               RevokedFamilyRegistry revokedFamilies,
+                               PlatformTransactionManager transactionManager) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtService = jwtService;
+        this.revokedFamilies = revokedFamilies;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void load() {
+        // Access token sống lâu nhất jwtExpiration, họ thu hồi trước đó không còn ảnh hưởng
+        LocalDateTime now = LocalDateTime.now();
+        syncRevocations(now.minusNanos(jwtExpiration * 1_000_000L), now);
+        log.info("Loaded {} revoked token families", revokedFamilies.size());
+    }
+
+    /**
+     * Mở họ token mới khi đăng nhập hoặc đăng ký
+     */
+    public IssuedTokens startFamily(User user) {
+        return issue(user, UUID.randomUUID());
+    }
+
+    /**
+     * Xoay refresh token đã verify chữ ký. Token đã dùng hoặc họ đã thu hồi bị từ chối;
+     * token đã dùng bị dùng lại thì thu hồi cả họ.
+     */
+    public IssuedTokens rotate(Claims claims, User user) {
+        UUID familyId = jwtService.familyId(claims);
+        if (!jwtService.isRefreshToken(claims) || familyId == null || claims.getId() == null) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+        if (revokedFamilies.isRevoked(familyId)) {
+            throw new RuntimeException("Refresh token đã bị thu hồi");
+        }
+
+        UUID tokenId = UUID.fromString(claims.getId());
+        IssuedTokens issued = transactionTemplate.execute(status ->
+                refreshTokenRepository.markUsed(tokenId, LocalDateTime.now()) == 1 ? issue(user, familyId) : null);
+        if (issued != null) {
+            return issued;
+        }
+
+        // Thu hồi họ ngoài transaction xoay vòng: exception phía dưới không được rollback việc thu hồi
+        RefreshToken token = refreshTokenRepository.findById(tokenId)
+                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+        if (token.getUsedAt() != null && token.getRevokedAt() == null) {
+            log.warn("Refresh token reuse detected for user {}, revoking family {}", token.getUserId(), familyId);
+            revokeFamily(familyId);
+        }
+        throw new RuntimeException("Refresh token đã bị thu hồi");
+    }
+
+    /**
+     * Đăng xuất: thu hồi họ của refresh token
+     */
+    public void logout(Claims claims) {
+        UUID familyId = jwtService.familyId(claims);
+        if (!jwtService.isRefreshToken(claims) || familyId == null) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+        revokeFamily(familyId);
+    }
+
+    public void revokeFamily(UUID familyId) {
+        refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now());
+        revokedFamilies.revoke(familyId, System.currentTimeMillis() + jwtExpiration);
+    }
+
+    // Nhận các họ bị thu hồi ở instance khác
+    @Scheduled(fixedDelayString = "${chat.auth.revocation-sync-ms:15000}")
+    public void pollRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        // Lùi một chút để không bỏ sót dòng commit muộn hơn thời điểm ghi revoked_at
+        syncRevocations(revocationsSyncedAt.minusSeconds(5), now);
+        revokedFamilies.purgeExpired(System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${chat.auth.refresh-token-cleanup-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private void syncRevocations(LocalDateTime since, LocalDateTime now) {
+        List<UUID> familyIds = refreshTokenRepository.findFamilyIdsRevokedAfter(since);
+        long retainUntil = System.currentTimeMillis() + jwtExpiration;
+        for (UUID familyId : familyIds) {
+            if (!revokedFamilies.isRevoked(familyId)) {
+                revokedFamilies.revoke(familyId, retainUntil);
+            }
+        }
+        revocationsSyncedAt = now;
+    }
+
+    private IssuedTokens issue(User user, UUID familyId) {
+        UUID tokenId = UUID.randomUUID();
+        refreshTokenRepository.insert(tokenId, familyId, user.getId(),
+                LocalDateTime.now().plusNanos(refreshExpiration * 1_000_000L));
+        return new IssuedTokens(
+                jwtService.generateToken(user, familyId),
+                jwtService.generateRefreshToken(user, familyId, tokenId)
+        );
+    }
+}
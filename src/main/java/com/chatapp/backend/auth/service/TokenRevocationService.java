@@ -0,0 +1,120 @@
+package com.chatapp.backend.auth.service;
+
+import com.chatapp.backend.auth.entity.TokenRevocation;
+import com.chatapp.backend.auth.repository.RefreshTokenRepository;
+import com.chatapp.backend.auth.repository.TokenRevocationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thu hồi token theo user bằng một mốc thời gian: token có iat không sau mốc bị từ chối.
+ *
+ * Các mốc còn hiệu lực được nạp vào bộ nhớ khi khởi động và đồng bộ định kỳ từ database
+ * (giống RefreshTokenService), nên kiểm tra mỗi request chỉ là một lần tra map. Mốc có độ
+ * chính xác giây như iat của JWT; token phát hành trong cùng giây với mốc cũng bị coi là
+ * đã thu hồi, để không bỏ sót token phát hành ngay trước lúc thu hồi.
+ *
+ * Thu hồi cũng thu hồi mọi họ refresh token của user, nên sau thời hạn access token mốc
+ * không còn tác dụng và được dọn khỏi bộ nhớ lẫn database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository revocationRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    // userId -> mốc thu hồi (epoch giây)
+    private final Map<UUID, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    @Value("${jwt.expiration}")
+    private long jwtExpiration;
+
+    // Mốc đã đồng bộ từ database
+    private volatile LocalDateTime revocationsSyncedAt;
+
+    @PostConstruct
+    void load() {
+        // Mốc cũ hơn thời hạn access token không còn token nào bị ảnh hưởng
+        LocalDateTime now = LocalDateTime.now();
+        syncRevocations(now.minusNanos(jwtExpiration * 1_000_000L), now);
+        log.info("Loaded {} token revocations", revokedBefore.size());
+    }
+
+    /**
+     * Thu hồi mọi token đã phát hành cho user tính tới thời điểm hiện tại.
+     * Mốc trong bộ nhớ chỉ được áp dụng sau khi transaction của người gọi commit.
+     */
+    public void revokeAll(UUID userId) {
+        long epochSecond = Instant.now().getEpochSecond();
+        LocalDateTime mark = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+        revocationRepository.revoke(userId, mark);
+        refreshTokenRepository.revokeUser(userId, LocalDateTime.now());
+        afterCommit(() -> revokedBefore.merge(userId, epochSecond, Math::max));
+    }
+
+    public boolean isRevoked(UUID userId, Date issuedAt) {
+        Long mark = revokedBefore.get(userId);
+        if (mark == null) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.toInstant().getEpochSecond() <= mark;
+    }
+
+    // Nhận các mốc thu hồi ghi ở instance khác
+    @Scheduled(fixedDelayString = "${chat.auth.revocation-sync-ms:15000}")
+    public void pollRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        // Mốc được ghi trước khi transaction commit, lùi lại để không bỏ sót dòng commit muộn
+        syncRevocations(revocationsSyncedAt.minusSeconds(30), now);
+        long expiredBefore = Instant.now().minusMillis(jwtExpiration).getEpochSecond();
+        revokedBefore.values().removeIf(mark -> mark < expiredBefore);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.auth.refresh-token-cleanup-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = revocationRepository.deleteRevokedBefore(LocalDateTime.now().minusNanos(jwtExpiration * 1_000_000L));
+        if (deleted > 0) {
+            log.info("Deleted {} expired token revocations", deleted);
+        }
+    }
+
+    private void syncRevocations(LocalDateTime since, LocalDateTime now) {
+        for (TokenRevocation revocation : revocationRepository.findByRevokedBeforeAfter(since)) {
+            revokedBefore.merge(revocation.getUserId(), toEpochSecond(revocation.getRevokedBefore()), Math::max);
+        }
+        revocationsSyncedAt = now;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -1,7 +1,10 @@
 package com.chatapp.backend.chat.controller;
 
+import com.chatapp.backend.chat.dto.AddMembersRequest;
+import com.chatapp.backend.chat.dto.AddMembersResponse;
 import com.chatapp.backend.chat.dto.CreateRoomRequest;
 import com.chatapp.backend.chat.dto.RoomDto;
+import com.chatapp.backend.chat.dto.RoomMemberPage;
 import com.chatapp.backend.chat.service.RoomService;
 import com.chatapp.backend.common.annotations.CurrentUserId;
 import com.chatapp.backend.common.dto.ApiResponse;
@@ -168,19 +171,23 @@ public class RoomController {
      * Join phòng
      */
     @PostMapping("/{roomId}/join")
-    @Operation(summary = "Join room", description = "Join a public room")
+    @Operation(summary = "Join room", description = "Join a public room; responds 409 when the room is full or the user is already a member")
     public ResponseEntity<ApiResponse<Void>> joinRoom(
             @PathVariable UUID roomId,
             @Parameter(hidden = true) @CurrentUserId UUID currentUserId) {
         
         log.info("User {} joining room: {}", currentUserId, roomId);
         
-        roomService.joinRoom(roomId, currentUserId);
-        
-        return ResponseEntity.ok(ApiResponse.<Void>builder()
-                .success(true)
-                .message("Successfully joined the room")
-                .build());
+        return switch (roomService.joinRoom(roomId, currentUserId)) {
+            case JOINED -> ResponseEntity.ok(ApiResponse.<Void>builder()
+                    .success(true)
+                    .message("Successfully joined the room")
+                    .build());
+            case ALREADY_MEMBER -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.conflict("Bạn đã là thành viên của phòng này"));
+            case ROOM_FULL -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.conflict("Phòng đã đầy"));
+        };
     }
 
     /**
@@ -202,6 +209,26 @@ public class RoomController {
                 .build());
     }
 
+    /**
+     * Lấy danh sách thành viên phòng (phân trang keyset)
+     */
+    @GetMapping("/{roomId}/members")
+    @Operation(summary = "Get room members", description = "Get room members ordered by user id; pass nextCursor as 'after' to fetch the next page")
+    public ResponseEntity<ApiResponse<RoomMemberPage>> getRoomMembers(
+            @PathVariable UUID roomId,
+            @Parameter(description = "Cursor from the previous page (nextCursor)") @RequestParam(required = false) UUID after,
+            @RequestParam(defaultValue = "50") int size,
+            @Parameter(hidden = true) @CurrentUserId UUID currentUserId) {
+        
+        RoomMemberPage members = roomService.getRoomMembers(roomId, currentUserId, after, size);
+        
+        return ResponseEntity.ok(ApiResponse.<RoomMemberPage>builder()
+                .success(true)
+                .message("Room members retrieved successfully")
+                .data(members)
+                .build());
+    }
+
     /**
      * Thêm member vào phòng (chỉ admin)
      */
@@ -222,6 +249,27 @@ public class RoomController {
                 .build());
     }
 
+    /**
+     * Thêm nhiều member vào phòng trong một lần (chỉ admin)
+     */
+    @PostMapping("/{roomId}/members")
+    @Operation(summary = "Add members to room", description = "Add many users to room in one batch; unknown users and existing members are skipped (admin only)")
+    public ResponseEntity<ApiResponse<AddMembersResponse>> addMembersToRoom(
+            @PathVariable UUID roomId,
+            @Valid @RequestBody AddMembersRequest request,
+            @Parameter(hidden = true) @CurrentUserId UUID currentUserId) {
+        
+        log.info("Admin {} adding {} users to room: {}", currentUserId, request.getUserIds().size(), roomId);
+        
+        AddMembersResponse result = roomService.addMembersToRoom(roomId, request.getUserIds(), currentUserId);
+        
+        return ResponseEntity.ok(ApiResponse.<AddMembersResponse>builder()
+                .success(true)
+                .message("Members added successfully")
+                .data(result)
+                .build());
+    }
+
     /**
      * Xóa member khỏi phòng (chỉ admin)
      */
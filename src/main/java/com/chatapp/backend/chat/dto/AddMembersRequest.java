@@ -0,0 +1,23 @@
+package com.chatapp.backend.chat.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddMembersRequest {
+    
+    @NotEmpty(message = "Danh sách user không được để trống")
+    @Size(max = 1000, message = "Tối đa 1000 user mỗi lần thêm")
+    private List<@NotNull(message = "User id không được để trống") UUID> userIds;
+}
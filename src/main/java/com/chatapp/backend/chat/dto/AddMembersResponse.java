@@ -0,0 +1,22 @@
+package com.chatapp.backend.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddMembersResponse {
+    
+    // Id các user vừa được thêm vào phòng
+    private List<UUID> added;
+    
+    // Số user bị bỏ qua (không tồn tại, đã là thành viên hoặc phòng đã đủ chỗ)
+    private int skipped;
+}
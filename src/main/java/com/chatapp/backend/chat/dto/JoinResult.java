@@ -0,0 +1,10 @@
+package com.chatapp.backend.chat.dto;
+
+/**
+ * Kết quả join phòng (RoomRepository.JOIN_SQL)
+ */
+public enum JoinResult {
+    JOINED,          // Đã thêm vào phòng
+    ALREADY_MEMBER,  // Đã là thành viên từ trước
+    ROOM_FULL        // Phòng đã đủ max_members
+}
@@ -0,0 +1,28 @@
+package com.chatapp.backend.chat.dto;
+
+import com.chatapp.backend.websocket.dto.ChatMessage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cấu hình Jackson cho lean mode (chat.payload.lean-mode=true): payload tin nhắn bỏ các field
+ * null (username/avatar đã được lược bớt). Chỉ áp dụng cho MessageResponse/ChatMessage và chỉ
+ * khi bật lean mode; ngoài lean mode payload giữ đủ các key kể cả giá trị null.
+ */
+public final class LeanPayloads {
+
+    private LeanPayloads() {
+    }
+
+    public static Jackson2ObjectMapperBuilder configure(Jackson2ObjectMapperBuilder builder, boolean leanMode) {
+        if (leanMode) {
+            builder.mixIn(MessageResponse.class, NonNullMixin.class);
+            builder.mixIn(ChatMessage.class, NonNullMixin.class);
+        }
+        return builder;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private abstract static class NonNullMixin {
+    }
+}
@@ -1,6 +1,7 @@
 package com.chatapp.backend.chat.dto;
 
 import com.chatapp.backend.chat.entity.Message;
+import com.chatapp.backend.user.entity.User;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,6 +24,8 @@ public class MessageResponse {
     private UUID receiverId;
     private String receiverUsername;
     private String receiverAvatar;
+    private Long senderProfileVersion;
+    private Long receiverProfileVersion;
     private UUID roomId;
     private Message.MessageType messageType;
     private Boolean isRead;
@@ -31,15 +34,28 @@ public class MessageResponse {
     
     // Static method để convert từ Entity sang DTO
     public static MessageResponse fromEntity(Message message) {
+        return fromEntity(message, false);
+    }
+    
+    /**
+     * lean = true: chỉ gửi id + profileVersion của user, client lấy username/avatar
+     * từ cache (đồng bộ qua GET /api/v1/users/profiles). Field null chỉ bị bỏ khỏi JSON
+     * khi bật chat.payload.lean-mode (LeanPayloads)
+     */
+    public static MessageResponse fromEntity(Message message, boolean lean) {
+        User sender = message.getSender();
+        User receiver = message.getReceiver();
         return MessageResponse.builder()
                 .id(message.getId())
                 .content(message.getContent())
-                .senderId(message.getSender().getId())
-                .senderUsername(message.getSender().getUsername())
-                .senderAvatar(message.getSender().getAvatar())
-                .receiverId(message.getReceiver() != null ? message.getReceiver().getId() : null)
-                .receiverUsername(message.getReceiver() != null ? message.getReceiver().getUsername() : null)
-                .receiverAvatar(message.getReceiver() != null ? message.getReceiver().getAvatar() : null)
+                .senderId(sender.getId())
+                .senderUsername(lean ? null : sender.getUsername())
+                .senderAvatar(lean ? null : sender.getAvatar())
+                .senderProfileVersion(sender.getProfileVersion())
+                .receiverId(receiver != null ? receiver.getId() : null)
+                .receiverUsername(receiver != null && !lean ? receiver.getUsername() : null)
+                .receiverAvatar(receiver != null && !lean ? receiver.getAvatar() : null)
+                .receiverProfileVersion(receiver != null ? receiver.getProfileVersion() : null)
                 .roomId(message.getRoomId())
                 .messageType(message.getMessageType())
                 .isRead(message.getIsRead())
@@ -24,8 +24,8 @@ public class RoomDto {
     private UUID createdById;
     private String createdByUsername;
     private String createdByAvatar;
-    private List<RoomMemberDto> members;
-    private List<RoomMemberDto> admins;
+    // Vài thành viên đầu để hiển thị; danh sách đầy đủ lấy qua GET /rooms/{roomId}/members
+    private List<RoomMemberDto> memberPreview;
     private Boolean isPrivate;
     private Integer maxMembers;
     private Integer currentMemberCount;
@@ -70,6 +70,7 @@ public class RoomDto {
         private String email;
         private String avatar;
         private LocalDateTime joinedAt;
+        private Boolean isAdmin;
     }
 }
 
@@ -0,0 +1,24 @@
+package com.chatapp.backend.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Một trang thành viên phòng, phân trang keyset theo id thành viên
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomMemberPage {
+    
+    private List<RoomDto.RoomMemberDto> members;
+    
+    // Truyền lại qua tham số after để lấy trang tiếp theo; null khi đã hết
+    private UUID nextCursor;
+}
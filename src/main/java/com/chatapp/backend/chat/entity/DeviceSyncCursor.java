@@ -0,0 +1,51 @@
+package com.chatapp.backend.chat.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Cursor đồng bộ tin nhắn của một thiết bị: (created_at, id) của tin nhắn cuối cùng đã nhận
+ */
+@Entity
+@Table(name = "device_sync_cursors")
+@IdClass(DeviceSyncCursor.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceSyncCursor {
+    
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+    
+    @Id
+    @Column(name = "device_id", length = 100)
+    private String deviceId;
+    
+    @Column(name = "last_created_at", nullable = false)
+    private LocalDateTime lastCreatedAt;
+    
+    @Column(name = "last_message_id", nullable = false)
+    private UUID lastMessageId;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private String deviceId;
+    }
+}
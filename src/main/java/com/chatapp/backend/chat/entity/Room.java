@@ -69,10 +69,19 @@ public class Room {
     @Column(name = "max_members")
     private Integer maxMembers;
     
-    @Column(name = "current_member_count", nullable = false)
+    // Chỉ ghi khi insert; sau đó do các câu lệnh membership trong RoomRepository cập nhật,
+    // save() phòng với giá trị đã cũ không được ghi đè lên
+    @Column(name = "current_member_count", nullable = false, updatable = false)
     @Builder.Default
     private Integer currentMemberCount = 0;
     
+    // Khóa chuẩn hóa của phòng PRIVATE (LEAST/GREATEST id hai user), NULL với phòng khác
+    @Column(name = "pair_low", updatable = false)
+    private UUID pairLow;
+    
+    @Column(name = "pair_high", updatable = false)
+    private UUID pairHigh;
+    
     @Column(name = "last_message_at")
     private LocalDateTime lastMessageAt;
     
@@ -91,22 +100,8 @@ public class Room {
         CHANNEL     // Channel (broadcast)
     }
     
-    // Helper methods
-    public void addMember(User user) {
-        if (members == null) {
-            members = new HashSet<>();
-        }
-        members.add(user);
-        currentMemberCount = members.size();
-    }
-    
-    public void removeMember(User user) {
-        if (members != null) {
-            members.remove(user);
-            currentMemberCount = members.size();
-        }
-    }
-    
+    // Helper methods. Thành viên được thêm/bớt qua RoomRepository (JOIN_SQL, insertMember...)
+    // để current_member_count cập nhật cùng câu lệnh với room_members
     public void addAdmin(User user) {
         if (admins == null) {
             admins = new HashSet<>();
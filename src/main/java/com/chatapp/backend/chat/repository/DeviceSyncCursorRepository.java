@@ -0,0 +1,30 @@
+package com.chatapp.backend.chat.repository;
+
+import com.chatapp.backend.chat.entity.DeviceSyncCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface DeviceSyncCursorRepository extends JpaRepository<DeviceSyncCursor, DeviceSyncCursor.Key> {
+    
+    // Upsert cursor, chỉ tiến về phía trước (ack đến trễ không kéo cursor lùi lại)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO device_sync_cursors (user_id, device_id, last_created_at, last_message_id, updated_at) " +
+                   "VALUES (:userId, :deviceId, :createdAt, :messageId, CURRENT_TIMESTAMP) " +
+                   "ON CONFLICT (user_id, device_id) DO UPDATE SET " +
+                   "last_created_at = EXCLUDED.last_created_at, last_message_id = EXCLUDED.last_message_id, updated_at = CURRENT_TIMESTAMP " +
+                   "WHERE (EXCLUDED.last_created_at, EXCLUDED.last_message_id) > " +
+                   "(device_sync_cursors.last_created_at, device_sync_cursors.last_message_id)", nativeQuery = true)
+    int advance(@Param("userId") UUID userId,
+                @Param("deviceId") String deviceId,
+                @Param("createdAt") LocalDateTime createdAt,
+                @Param("messageId") UUID messageId);
+}
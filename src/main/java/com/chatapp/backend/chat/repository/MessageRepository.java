@@ -10,6 +10,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -60,5 +62,30 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
            "  END" +
            ") ORDER BY m.createdAt DESC")
     List<Message> findLatestMessagesForUser(@Param("userId") UUID userId);
+    
+    // Id các tin nhắn mới hơn cursor (created_at, id) trên mọi cuộc trò chuyện và room của user.
+    // Mỗi nhánh dùng index (x, created_at, id) riêng và đã được LIMIT trước khi gộp; nhánh room
+    // phân trang theo từng room (LATERAL trên idx_messages_room_created_id) thay vì sắp xếp chung
+    // mọi tin nhắn của các room user tham gia.
+    @Query(value = "SELECT t.id FROM (" +
+                   "(SELECT m.id, m.created_at FROM messages m WHERE m.receiver_id = :userId " +
+                   "  AND (m.created_at, m.id) > (:createdAt, :messageId) ORDER BY m.created_at, m.id LIMIT :limit) " +
+                   "UNION ALL " +
+                   "(SELECT m.id, m.created_at FROM messages m WHERE m.sender_id = :userId AND m.receiver_id IS NOT NULL " +
+                   "  AND m.receiver_id <> :userId " +
+                   "  AND (m.created_at, m.id) > (:createdAt, :messageId) ORDER BY m.created_at, m.id LIMIT :limit) " +
+                   "UNION ALL " +
+                   "(SELECT p.id, p.created_at FROM room_members rm CROSS JOIN LATERAL (" +
+                   "  SELECT m.id, m.created_at FROM messages m WHERE m.room_id = rm.room_id AND m.receiver_id IS NULL " +
+                   "  AND (m.created_at, m.id) > (:createdAt, :messageId) ORDER BY m.created_at, m.id LIMIT :limit) p " +
+                   "  WHERE rm.user_id = :userId)" +
+                   ") t ORDER BY t.created_at, t.id LIMIT :limit", nativeQuery = true)
+    List<UUID> findIdsAfterCursor(@Param("userId") UUID userId,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("messageId") UUID messageId,
+                                  @Param("limit") int limit);
+    
+    // Load tin nhắn kèm sender/receiver trong một truy vấn (tránh N+1)
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender LEFT JOIN FETCH m.receiver WHERE m.id IN :ids")
+    List<Message> findAllWithUsersByIdIn(@Param("ids") Collection<UUID> ids);
 }
-
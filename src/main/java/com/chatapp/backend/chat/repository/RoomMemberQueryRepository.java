@@ -0,0 +1,90 @@
+package com.chatapp.backend.chat.repository;
+
+import com.chatapp.backend.chat.dto.RoomDto.RoomMemberDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Đọc thành viên phòng thẳng từ room_members, không nạp collection members của Room.
+ *
+ * Phân trang keyset theo user_id: điều kiện (room_id = ? AND user_id > ?) đi đúng khóa chính
+ * (room_id, user_id) nên mỗi trang chỉ đọc size dòng, dù phòng có bao nhiêu thành viên.
+ */
+@Repository
+public class RoomMemberQueryRepository {
+
+    private static final String MEMBER_COLUMNS =
+            "u.id, u.username, u.email, u.avatar, rm.joined_at, (ra.user_id IS NOT NULL) AS is_admin ";
+
+    private static final RowMapper<RoomMemberDto> MEMBER_MAPPER = (rs, rowNum) -> {
+        Timestamp joinedAt = rs.getTimestamp("joined_at");
+        return RoomMemberDto.builder()
+                .id(rs.getObject("id", UUID.class))
+                .username(rs.getString("username"))
+                .email(rs.getString("email"))
+                .avatar(rs.getString("avatar"))
+                .joinedAt(joinedAt != null ? joinedAt.toLocalDateTime() : null)
+                .isAdmin(rs.getBoolean("is_admin"))
+                .build();
+    };
+
+    // UUID nhỏ nhất, dùng làm cursor cho trang đầu
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RoomMemberQueryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Tối đa limit thành viên có user_id lớn hơn after (null = từ đầu), sắp theo user_id
+     */
+    public List<RoomMemberDto> findMembersAfter(UUID roomId, UUID after, int limit) {
+        return jdbcTemplate.query(
+                "SELECT " + MEMBER_COLUMNS +
+                "FROM room_members rm " +
+                "JOIN users u ON u.id = rm.user_id " +
+                "LEFT JOIN room_admins ra ON ra.room_id = rm.room_id AND ra.user_id = rm.user_id " +
+                "WHERE rm.room_id = ? AND rm.user_id > ? " +
+                "ORDER BY rm.user_id LIMIT ?",
+                MEMBER_MAPPER, roomId, after != null ? after : MIN_UUID, limit);
+    }
+
+    /**
+     * Vài thành viên đầu của mỗi phòng trong một truy vấn (LATERAL theo từng room_id)
+     */
+    public Map<UUID, List<RoomMemberDto>> findPreviews(Collection<UUID> roomIds, int limitPerRoom) {
+        Map<UUID, List<RoomMemberDto>> previews = new HashMap<>();
+        if (roomIds.isEmpty() || limitPerRoom <= 0) {
+            return previews;
+        }
+        jdbcTemplate.query(
+                "SELECT r.room_id, p.* FROM unnest(CAST(? AS uuid[])) AS r(room_id) " +
+                "CROSS JOIN LATERAL (" +
+                "  SELECT " + MEMBER_COLUMNS +
+                "  FROM room_members rm " +
+                "  JOIN users u ON u.id = rm.user_id " +
+                "  LEFT JOIN room_admins ra ON ra.room_id = rm.room_id AND ra.user_id = rm.user_id " +
+                "  WHERE rm.room_id = r.room_id " +
+                "  ORDER BY rm.user_id LIMIT ?" +
+                ") p",
+                (RowCallbackHandler) rs -> {
+                    UUID roomId = rs.getObject("room_id", UUID.class);
+                    previews.computeIfAbsent(roomId, id -> new ArrayList<>())
+                            .add(MEMBER_MAPPER.mapRow(rs, 0));
+                },
+                roomIds.stream().map(UUID::toString).toArray(String[]::new), limitPerRoom);
+        return previews;
+    }
+}
@@ -4,10 +4,12 @@ import com.chatapp.backend.chat.entity.Room;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,17 +24,33 @@ public interface RoomRepository extends JpaRepository<Room, UUID> {
            "ORDER BY r.lastMessageAt DESC NULLS LAST, r.updatedAt DESC")
     Page<Room> findRoomsByMemberId(@Param("userId") UUID userId, Pageable pageable);
     
-    // Tìm phòng private giữa 2 user
-    @Query("SELECT r FROM Room r " +
-           "WHERE r.roomType = 'PRIVATE' " +
-           "AND r.currentMemberCount = 2 " +
-           "AND EXISTS (SELECT 1 FROM r.members m WHERE m.id = :user1Id) " +
-           "AND EXISTS (SELECT 1 FROM r.members m WHERE m.id = :user2Id)")
-    Optional<Room> findPrivateRoomBetweenUsers(
+    // Id phòng private giữa 2 user, tra theo unique index (pair_low, pair_high)
+    @Query(value = "SELECT id FROM rooms " +
+                   "WHERE pair_low = LEAST(:user1Id, :user2Id) AND pair_high = GREATEST(:user1Id, :user2Id)",
+           nativeQuery = true)
+    Optional<UUID> findPrivateRoomIdBetweenUsers(
             @Param("user1Id") UUID user1Id, 
             @Param("user2Id") UUID user2Id
     );
     
+    // Tạo phòng private kèm 2 thành viên trong một câu lệnh. Rỗng nếu cặp đã có phòng
+    // (kể cả do request đồng thời vừa tạo): ON CONFLICT chờ transaction kia rồi bỏ qua
+    @Query(value = "WITH room AS (" +
+                   "  INSERT INTO rooms (id, name, room_type, created_by, is_private, current_member_count, pair_low, pair_high) " +
+                   "  VALUES (:roomId, :name, 'PRIVATE', :user1Id, TRUE, 2, LEAST(:user1Id, :user2Id), GREATEST(:user1Id, :user2Id)) " +
+                   "  ON CONFLICT (pair_low, pair_high) DO NOTHING RETURNING id" +
+                   "), members AS (" +
+                   "  INSERT INTO room_members (room_id, user_id) " +
+                   "  SELECT id, :user1Id FROM room UNION ALL SELECT id, :user2Id FROM room" +
+                   ") " +
+                   "SELECT id FROM room", nativeQuery = true)
+    Optional<UUID> insertPrivateRoom(
+            @Param("roomId") UUID roomId,
+            @Param("name") String name,
+            @Param("user1Id") UUID user1Id,
+            @Param("user2Id") UUID user2Id
+    );
+    
     // Tìm phòng theo tên (cho search)
     @Query("SELECT r FROM Room r " +
            "WHERE LOWER(r.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
@@ -90,5 +108,91 @@ public interface RoomRepository extends JpaRepository<Room, UUID> {
            "JOIN r.admins a " +
            "WHERE r.id = :roomId AND a.id = :userId")
     boolean isUserAdminOfRoom(@Param("roomId") UUID roomId, @Param("userId") UUID userId);
+    
+    // Lấy loại phòng (không load entity)
+    @Query("SELECT r.roomType FROM Room r WHERE r.id = :roomId")
+    Optional<Room.RoomType> findRoomTypeById(@Param("roomId") UUID roomId);
+    
+    // Join có điều kiện trong một câu lệnh: khóa dòng rooms, chỉ thêm khi còn chỗ và chỉ tăng
+    // current_member_count khi thực sự thêm. Các join đồng thời xếp hàng trên khóa dòng và đọc
+    // lại số thành viên mới nhất nên không vượt max_members. Không có dòng nào khi phòng không tồn tại
+    String JOIN_SQL =
+            "WITH room AS (" +
+            "  SELECT id, max_members, current_member_count FROM rooms WHERE id = :roomId FOR UPDATE" +
+            "), ins AS (" +
+            "  INSERT INTO room_members (room_id, user_id) " +
+            "  SELECT id, :userId FROM room WHERE max_members IS NULL OR current_member_count < max_members " +
+            "  ON CONFLICT DO NOTHING RETURNING room_id" +
+            "), upd AS (" +
+            "  UPDATE rooms SET current_member_count = current_member_count + 1 " +
+            "  WHERE id IN (SELECT room_id FROM ins) RETURNING id" +
+            ") " +
+            "SELECT CASE WHEN EXISTS (SELECT 1 FROM upd) THEN 'JOINED' " +
+            "            WHEN max_members IS NULL OR current_member_count < max_members THEN 'ALREADY_MEMBER' " +
+            "            ELSE 'ROOM_FULL' END " +
+            "FROM room";
+    
+    @Query(value = JOIN_SQL, nativeQuery = true)
+    Optional<String> joinMember(@Param("roomId") UUID roomId, @Param("userId") UUID userId);
+    
+    // Thêm thành viên không xét giới hạn (creator khi tạo phòng), tăng current_member_count nếu thực sự thêm
+    @Modifying
+    @Query(value = "WITH ins AS (" +
+                   "  INSERT INTO room_members (room_id, user_id) VALUES (:roomId, :userId) " +
+                   "  ON CONFLICT DO NOTHING RETURNING room_id" +
+                   ") " +
+                   "UPDATE rooms SET current_member_count = current_member_count + 1 " +
+                   "WHERE id IN (SELECT room_id FROM ins)", nativeQuery = true)
+    int insertMember(@Param("roomId") UUID roomId, @Param("userId") UUID userId);
+    
+    // Thêm nhiều thành viên trong một câu lệnh, tối đa số chỗ còn lại của phòng; bỏ qua user không tồn tại
+    // hoặc đã là thành viên. Trả về id những user thực sự được thêm
+    @Query(value = "WITH room AS (" +
+                   "  SELECT id, max_members, current_member_count FROM rooms WHERE id = :roomId FOR UPDATE" +
+                   "), ins AS (" +
+                   "  INSERT INTO room_members (room_id, user_id) " +
+                   "  SELECT room.id, u.id FROM room JOIN users u ON u.id IN (:userIds) " +
+                   "  WHERE NOT EXISTS (SELECT 1 FROM room_members rm WHERE rm.room_id = room.id AND rm.user_id = u.id) " +
+                   "  ORDER BY u.id " +
+                   "  LIMIT (SELECT CASE WHEN max_members IS NULL THEN NULL " +
+                   "                     ELSE GREATEST(max_members - current_member_count, 0) END FROM room) " +
+                   "  ON CONFLICT DO NOTHING RETURNING user_id" +
+                   "), upd AS (" +
+                   "  UPDATE rooms SET current_member_count = current_member_count + (SELECT COUNT(*) FROM ins) " +
+                   "  WHERE id = :roomId AND EXISTS (SELECT 1 FROM ins)" +
+                   ") " +
+                   "SELECT user_id FROM ins", nativeQuery = true)
+    List<UUID> insertMembers(@Param("roomId") UUID roomId, @Param("userIds") Collection<UUID> userIds);
+    
+    // Thêm quyền admin trực tiếp vào bảng nối
+    @Modifying
+    @Query(value = "INSERT INTO room_admins (room_id, user_id) VALUES (:roomId, :userId) " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertAdmin(@Param("roomId") UUID roomId, @Param("userId") UUID userId);
+    
+    // Xóa thành viên trực tiếp khỏi bảng nối, giảm current_member_count nếu thực sự xóa
+    @Modifying
+    @Query(value = "WITH del AS (" +
+                   "  DELETE FROM room_members WHERE room_id = :roomId AND user_id = :userId RETURNING room_id" +
+                   ") " +
+                   "UPDATE rooms SET current_member_count = current_member_count - 1 " +
+                   "WHERE id IN (SELECT room_id FROM del)", nativeQuery = true)
+    int deleteMember(@Param("roomId") UUID roomId, @Param("userId") UUID userId);
+    
+    // Xóa quyền admin trực tiếp khỏi bảng nối
+    @Modifying
+    @Query(value = "DELETE FROM room_admins WHERE room_id = :roomId AND user_id = :userId", nativeQuery = true)
+    int deleteAdmin(@Param("roomId") UUID roomId, @Param("userId") UUID userId);
+    
+    // Id thành viên của phòng (nạp membership index)
+    @Query(value = "SELECT user_id FROM room_members WHERE room_id = :roomId", nativeQuery = true)
+    List<UUID> findMemberIdsByRoomId(@Param("roomId") UUID roomId);
+    
+    // Id admin của phòng (nạp membership index)
+    @Query(value = "SELECT user_id FROM room_admins WHERE room_id = :roomId", nativeQuery = true)
+    List<UUID> findAdminIdsByRoomId(@Param("roomId") UUID roomId);
+    
+    // Id các phòng mà user là thành viên (nạp membership index)
+    @Query(value = "SELECT room_id FROM room_members WHERE user_id = :userId", nativeQuery = true)
+    List<UUID> findRoomIdsByMemberId(@Param("userId") UUID userId);
 }
-
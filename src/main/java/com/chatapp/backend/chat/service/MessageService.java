@@ -7,13 +7,16 @@ import com.chatapp.backend.chat.repository.MessageRepository;
 import com.chatapp.backend.user.entity.User;
 import com.chatapp.backend.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,19 +28,37 @@ public class MessageService {
     private final UserRepository userRepository;
     private final RoomService roomService;
     
+    // Lean mode: payload chỉ chứa id + profileVersion của user, không kèm username/avatar
+    @Value("${chat.payload.lean-mode:false}")
+    private boolean leanPayloads;
+    
     /**
      * Tạo tin nhắn mới
      */
     public MessageResponse createMessage(CreateMessageRequest request, UUID senderId) {
-        // Lấy thông tin người gửi
-        User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new RuntimeException("Người gửi không tồn tại"));
+        // Lấy người gửi và người nhận trong một truy vấn
+        List<UUID> userIds = request.getReceiverId() != null && !request.getReceiverId().equals(senderId)
+                ? List.of(senderId, request.getReceiverId())
+                : List.of(senderId);
+        Map<UUID, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        
+        User sender = users.get(senderId);
+        if (sender == null) {
+            throw new RuntimeException("Người gửi không tồn tại");
+        }
+        
+        // Phòng CHANNEL: chỉ admin được đăng
+        if (request.getRoomId() != null) {
+            roomService.checkCanPost(request.getRoomId(), senderId);
+        }
         
-        // Lấy thông tin người nhận (nếu có)
         User receiver = null;
         if (request.getReceiverId() != null) {
-            receiver = userRepository.findById(request.getReceiverId())
-                    .orElseThrow(() -> new RuntimeException("Người nhận không tồn tại"));
+            receiver = users.get(request.getReceiverId());
+            if (receiver == null) {
+                throw new RuntimeException("Người nhận không tồn tại");
+            }
         }
         
         // Tạo tin nhắn mới
@@ -57,7 +78,7 @@ public class MessageService {
             roomService.updateLastMessageTime(request.getRoomId());
         }
         
-        return MessageResponse.fromEntity(savedMessage);
+        return toResponse(savedMessage);
     }
     
     /**
@@ -66,7 +87,7 @@ public class MessageService {
     @Transactional(readOnly = true)
     public Page<MessageResponse> getMessagesBetweenUsers(UUID user1Id, UUID user2Id, Pageable pageable) {
         Page<Message> messages = messageRepository.findMessagesBetweenUsers(user1Id, user2Id, pageable);
-        return messages.map(MessageResponse::fromEntity);
+        return messages.map(this::toResponse);
     }
     
     /**
@@ -75,7 +96,7 @@ public class MessageService {
     @Transactional(readOnly = true)
     public Page<MessageResponse> getMessagesByRoomId(UUID roomId, Pageable pageable) {
         Page<Message> messages = messageRepository.findMessagesByRoomId(roomId, pageable);
-        return messages.map(MessageResponse::fromEntity);
+        return messages.map(this::toResponse);
     }
     
     /**
@@ -100,7 +121,7 @@ public class MessageService {
     public List<MessageResponse> getUnreadMessages(UUID userId) {
         List<Message> messages = messageRepository.findUnreadMessages(userId);
         return messages.stream()
-                .map(MessageResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
     
@@ -111,7 +132,7 @@ public class MessageService {
     public List<MessageResponse> getLatestMessagesForUser(UUID userId) {
         List<Message> messages = messageRepository.findLatestMessagesForUser(userId);
         return messages.stream()
-                .map(MessageResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
     
@@ -129,5 +150,8 @@ public class MessageService {
         
         messageRepository.delete(message);
     }
+    
+    private MessageResponse toResponse(Message message) {
+        return MessageResponse.fromEntity(message, leanPayloads);
+    }
 }
-
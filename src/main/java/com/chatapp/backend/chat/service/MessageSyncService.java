@@ -0,0 +1,217 @@
+package com.chatapp.backend.chat.service;
+
+import com.chatapp.backend.chat.dto.MessageResponse;
+import com.chatapp.backend.chat.entity.DeviceSyncCursor;
+import com.chatapp.backend.chat.entity.Message;
+import com.chatapp.backend.chat.repository.DeviceSyncCursorRepository;
+import com.chatapp.backend.chat.repository.MessageRepository;
+import com.chatapp.backend.websocket.dto.ChatMessage;
+import com.chatapp.backend.websocket.dto.SyncBatch;
+import com.chatapp.backend.websocket.dto.SyncCursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Đồng bộ tin nhắn khi thiết bị reconnect.
+ *
+ * Mỗi thiết bị có cursor (created_at, id). Khi sync, server gửi các tin nhắn mới hơn
+ * cursor trên mọi cuộc trò chuyện/room của user theo từng batch giới hạn tới
+ * /user/queue/messages của đúng session đang sync. Thiết bị ack cursor sau khi xử lý.
+ *
+ * created_at được gán trước khi transaction commit, nên tin nhắn commit muộn có thể có
+ * created_at nhỏ hơn cursor thiết bị đã nhận. Vì vậy lần sync đọc lại thêm safety-window-ms
+ * trước cursor; tin nhắn trong khoảng này có thể được gửi lại, client bỏ trùng theo id.
+ *
+ * Sync chạy trên pool thread riêng (giới hạn số thread và hàng đợi), không chiếm thread
+ * inbound của WebSocket; mỗi session chỉ có một lần sync chạy tại một thời điểm.
+ */
+@Service
+@Slf4j
+public class MessageSyncService {
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final MessageRepository messageRepository;
+    private final DeviceSyncCursorRepository cursorRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+
+    // Session đang sync: bỏ yêu cầu sync trùng khi lần trước chưa xong
+    private final Set<String> syncingSessions = ConcurrentHashMap.newKeySet();
+
+    @Value("${chat.sync.batch-size:200}")
+    private int batchSize;
+
+    @Value("${chat.sync.max-batches:25}")
+    private int maxBatches;
+
+    @Value("${chat.sync.max-lookback-days:7}")
+    private int maxLookbackDays;
+
+    @Value("${chat.sync.safety-window-ms:5000}")
+    private long safetyWindowMillis;
+
+    @Value("${chat.payload.lean-mode:false}")
+    private boolean leanPayloads;
+
+    public MessageSyncService(MessageRepository messageRepository,
+                              DeviceSyncCursorRepository cursorRepository,
+                              SimpMessagingTemplate messagingTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.sync.threads:4}") int threads,
+                              @Value("${chat.sync.queue-capacity:256}") int queueCapacity) {
+        this.messageRepository = messageRepository;
+        this.cursorRepository = cursorRepository;
+        this.messagingTemplate = messagingTemplate;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "message-sync-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rejectedCounter = Counter.builder("chat.sync.rejected").register(meterRegistry);
+        meterRegistry.gauge("chat.sync.queue.size", executor, pool -> pool.getQueue().size());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Đưa yêu cầu sync vào pool; các batch tin nhắn mới hơn cursor được gửi tới session đang sync
+     */
+    public void sync(UUID userId, String sessionId, String deviceId, SyncCursor requested) {
+        validateDeviceId(deviceId);
+        if (!syncingSessions.add(sessionId)) {
+            log.debug("Sync already running for session {}", sessionId);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    runSync(userId, sessionId, deviceId, requested);
+                } catch (Exception e) {
+                    log.warn("Sync failed for session {}: {}", sessionId, e.getMessage());
+                } finally {
+                    syncingSessions.remove(sessionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            syncingSessions.remove(sessionId);
+            rejectedCounter.increment();
+            throw new RuntimeException("Server đang bận, thử sync lại sau");
+        }
+    }
+
+    private void runSync(UUID userId, String sessionId, String deviceId, SyncCursor requested) {
+        SyncCursor cursor = resolveCursor(userId, deviceId, requested);
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<Message> messages = loadBatch(userId, cursor);
+            boolean full = messages.size() == batchSize;
+            if (!messages.isEmpty()) {
+                Message last = messages.get(messages.size() - 1);
+                cursor = new SyncCursor(last.getCreatedAt(), last.getId());
+            }
+
+            boolean hasMore = full && batch == maxBatches - 1;
+            sendToSession(userId, sessionId, SyncBatch.builder()
+                    .messages(messages.stream()
+                            .map(message -> ChatMessage.fromMessageResponse(MessageResponse.fromEntity(message, leanPayloads)))
+                            .toList())
+                    .cursor(cursor)
+                    .hasMore(hasMore)
+                    .build());
+
+            if (!full) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Lưu cursor thiết bị đã xử lý xong (chỉ tiến về phía trước)
+     */
+    public void acknowledge(UUID userId, String deviceId, SyncCursor cursor) {
+        validateDeviceId(deviceId);
+        if (cursor == null || cursor.getCreatedAt() == null || cursor.getMessageId() == null) {
+            throw new RuntimeException("Cursor không hợp lệ");
+        }
+        cursorRepository.advance(userId, deviceId, cursor.getCreatedAt(), cursor.getMessageId());
+    }
+
+    private SyncCursor resolveCursor(UUID userId, String deviceId, SyncCursor requested) {
+        SyncCursor cursor = requested;
+        if (cursor == null || cursor.getCreatedAt() == null) {
+            cursor = cursorRepository.findById(new DeviceSyncCursor.Key(userId, deviceId))
+                    .map(stored -> new SyncCursor(stored.getLastCreatedAt(), stored.getLastMessageId()))
+                    .orElse(null);
+        }
+
+        // Thiết bị mới hoặc offline quá lâu: chỉ bù trong khoảng lookback, phần cũ hơn lấy qua API lịch sử
+        LocalDateTime floor = LocalDateTime.now().minusDays(maxLookbackDays);
+        if (cursor == null || cursor.getCreatedAt().isBefore(floor)) {
+            return new SyncCursor(floor, MIN_UUID);
+        }
+        // Đọc lại khoảng an toàn trước cursor để nhận tin nhắn commit sau khi cursor được ghi
+        return new SyncCursor(cursor.getCreatedAt().minusNanos(safetyWindowMillis * 1_000_000L), MIN_UUID);
+    }
+
+    private List<Message> loadBatch(UUID userId, SyncCursor cursor) {
+        List<UUID> ids = messageRepository.findIdsAfterCursor(userId, cursor.getCreatedAt(), cursor.getMessageId(), batchSize);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Message> byId = messageRepository.findAllWithUsersByIdIn(ids).stream()
+                .collect(Collectors.toMap(Message::getId, Function.identity()));
+        List<Message> ordered = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Message message = byId.get(id);
+            if (message != null) {
+                ordered.add(message);
+            }
+        }
+        return ordered;
+    }
+
+    private void sendToSession(UUID userId, String sessionId, SyncBatch batch) {
+        // Header sessionId: user destination chỉ resolve tới session đang sync, không tới thiết bị khác
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(userId.toString(), "/queue/messages", batch, accessor.getMessageHeaders());
+    }
+
+    private void validateDeviceId(String deviceId) {
+        if (deviceId == null || deviceId.isBlank() || deviceId.length() > 100) {
+            throw new RuntimeException("deviceId không hợp lệ");
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.chatapp.backend.chat.service;
+
+import com.chatapp.backend.chat.entity.Room;
+import com.chatapp.backend.chat.repository.RoomRepository;
+import com.chatapp.backend.chat.support.CompactUuidSet;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index membership phòng trong bộ nhớ, thay cho các truy vấn JOIN COUNT
+ * isUserMemberOfRoom/isUserAdminOfRoom ở mỗi request và mỗi SUBSCRIBE.
+ *
+ * - room -> loại phòng + tập admin + tập thành viên (CHANNEL không giữ tập thành viên
+ *   vì có thể rất lớn; membership channel tra theo phía user).
+ * - user -> tập phòng đã tham gia.
+ *
+ * Cả hai phía nạp lazy từ database ở lần truy vấn đầu, giới hạn số entry (LRU) và hết hạn
+ * sau ttl-ms. Thay đổi trên instance này được áp dụng sau khi transaction commit; mỗi thay
+ * đổi cũng được ghi vào room_membership_changes để các instance khác poll và bỏ entry
+ * tương ứng (nạp lại ở lần truy vấn sau).
+ *
+ * Phòng không tồn tại (id sai hoặc đã xóa) được nhớ âm trong missing-ttl-ms để SUBSCRIBE/SEND
+ * lặp lại tới cùng id không chạm database mỗi lần; tạo phòng trên instance này bỏ entry âm
+ * ngay khi commit.
+ */
+@Service
+@Slf4j
+public class RoomMembershipIndex {
+
+    private final RoomRepository roomRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Cache<UUID, RoomEntry> rooms;
+    private final Cache<UUID, CompactUuidSet> roomsByUser;
+    private final Cache<UUID, Boolean> missingRooms;
+
+    // Tăng trước mỗi thay đổi; lần nạp chạy song song với thay đổi sẽ không được cache
+    private final AtomicLong roomEpoch = new AtomicLong();
+    private final AtomicLong userEpoch = new AtomicLong();
+
+    private final Counter roomLoads;
+    private final Counter userLoads;
+
+    // Id các dòng thay đổi đã áp dụng trong cửa sổ lookback, tránh bỏ entry nhiều lần
+    private final Map<Long, LocalDateTime> appliedChanges = new HashMap<>();
+    private LocalDateTime changesSyncedAt;
+
+    @Value("${chat.membership.sync-lookback-ms:30000}")
+    private long syncLookbackMillis;
+
+    public RoomMembershipIndex(RoomRepository roomRepository,
+                               JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${chat.membership.max-rooms:10000}") int maxRooms,
+                               @Value("${chat.membership.max-users:100000}") int maxUsers,
+                               @Value("${chat.membership.ttl-ms:300000}") long ttlMillis,
+                               @Value("${chat.membership.missing-ttl-ms:5000}") long missingTtlMillis) {
+        this.roomRepository = roomRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.rooms = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .build();
+        this.roomsByUser = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .build();
+        this.missingRooms = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfterWrite(Duration.ofMillis(missingTtlMillis))
+                .build();
+        this.roomLoads = Counter.builder("chat.membership.loads").tag("side", "room").register(meterRegistry);
+        this.userLoads = Counter.builder("chat.membership.loads").tag("side", "user").register(meterRegistry);
+        Gauge.builder("chat.membership.entries", rooms, Cache::estimatedSize).tag("side", "room").register(meterRegistry);
+        Gauge.builder("chat.membership.entries", roomsByUser, Cache::estimatedSize).tag("side", "user").register(meterRegistry);
+    }
+
+    /**
+     * Loại phòng, rỗng nếu phòng không tồn tại
+     */
+    public Optional<Room.RoomType> roomType(UUID roomId) {
+        return Optional.ofNullable(room(roomId)).map(RoomEntry::type);
+    }
+
+    public boolean isChannel(UUID roomId) {
+        RoomEntry entry = room(roomId);
+        return entry != null && entry.type() == Room.RoomType.CHANNEL;
+    }
+
+    public boolean isMember(UUID roomId, UUID userId) {
+        RoomEntry entry = room(roomId);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.members() != null) {
+            return entry.members().contains(userId);
+        }
+        return userRooms(userId).contains(roomId);
+    }
+
+    public boolean isAdmin(UUID roomId, UUID userId) {
+        RoomEntry entry = room(roomId);
+        return entry != null && entry.admins().contains(userId);
+    }
+
+    /**
+     * Các thay đổi dưới đây được ghi vào nhật ký trong transaction hiện tại
+     * và áp dụng vào index sau khi transaction commit
+     */
+    public void memberAdded(UUID roomId, UUID userId) {
+        recordChange(roomId, userId);
+        afterCommit(() -> applyMemberAdded(roomId, userId));
+    }
+
+    public void membersAdded(UUID roomId, Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO room_membership_changes (room_id, user_id) VALUES (?, ?)",
+                userIds.stream().map(userId -> new Object[]{roomId, userId}).toList());
+        afterCommit(() -> userIds.forEach(userId -> applyMemberAdded(roomId, userId)));
+    }
+
+    public void memberRemoved(UUID roomId, UUID userId) {
+        recordChange(roomId, userId);
+        afterCommit(() -> {
+            rooms.asMap().computeIfPresent(roomId, (id, entry) -> {
+                if (entry.members() != null) {
+                    entry.members().remove(userId);
+                }
+                entry.admins().remove(userId);
+                return entry;
+            });
+            roomsByUser.asMap().computeIfPresent(userId, (id, userSet) -> {
+                userSet.remove(roomId);
+                return userSet;
+            });
+        });
+    }
+
+    public void adminAdded(UUID roomId, UUID userId) {
+        recordChange(roomId, userId);
+        afterCommit(() -> rooms.asMap().computeIfPresent(roomId, (id, entry) -> {
+            entry.admins().add(userId);
+            return entry;
+        }));
+    }
+
+    public void roomDeleted(UUID roomId) {
+        recordChange(roomId, null);
+        // Phía user có thể còn giữ roomId nhưng room() trả null nên isMember vẫn false
+        afterCommit(() -> rooms.invalidate(roomId));
+    }
+
+    /**
+     * Bỏ các entry đã bị instance khác thay đổi. Đọc lại cả cửa sổ lookback vì changed_at
+     * là thời điểm bắt đầu transaction, dòng có thể commit muộn hơn lần poll trước.
+     */
+    @Scheduled(fixedDelayString = "${chat.membership.sync-ms:5000}",
+            initialDelayString = "${chat.membership.sync-ms:5000}")
+    public void pollChanges() {
+        LocalDateTime now = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+        if (changesSyncedAt == null) {
+            // Lần đầu: entry nạp sau thời điểm khởi động đã phản ánh các thay đổi trước đó
+            changesSyncedAt = now;
+            return;
+        }
+
+        LocalDateTime since = changesSyncedAt.minusNanos(syncLookbackMillis * 1_000_000L);
+        List<Map<String, Object>> changes = jdbcTemplate.queryForList(
+                "SELECT id, room_id, user_id, changed_at FROM room_membership_changes WHERE changed_at > ?",
+                Timestamp.valueOf(since));
+        int invalidated = 0;
+        for (Map<String, Object> change : changes) {
+            Long id = ((Number) change.get("id")).longValue();
+            if (appliedChanges.putIfAbsent(id, ((Timestamp) change.get("changed_at")).toLocalDateTime()) != null) {
+                continue;
+            }
+            invalidate((UUID) change.get("room_id"), (UUID) change.get("user_id"));
+            invalidated++;
+        }
+        appliedChanges.values().removeIf(changedAt -> !changedAt.isAfter(since));
+        changesSyncedAt = now;
+        if (invalidated > 0) {
+            log.debug("Invalidated {} membership entries changed on other instances", invalidated);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.membership.change-cleanup-ms:600000}")
+    public void deleteOldChanges() {
+        jdbcTemplate.update("DELETE FROM room_membership_changes WHERE changed_at < LOCALTIMESTAMP - INTERVAL '1 hour'");
+    }
+
+    private void recordChange(UUID roomId, UUID userId) {
+        jdbcTemplate.update("INSERT INTO room_membership_changes (room_id, user_id) VALUES (?, ?)", roomId, userId);
+    }
+
+    private void invalidate(UUID roomId, UUID userId) {
+        roomEpoch.incrementAndGet();
+        userEpoch.incrementAndGet();
+        rooms.invalidate(roomId);
+        missingRooms.invalidate(roomId);
+        if (userId != null) {
+            roomsByUser.invalidate(userId);
+        }
+    }
+
+    // Cập nhật qua computeIfPresent để tuần tự với compute() khi nạp cùng key
+    private void applyMemberAdded(UUID roomId, UUID userId) {
+        // Phòng vừa tạo có thể đã bị nhớ âm bởi lần tra trước commit
+        missingRooms.invalidate(roomId);
+        rooms.asMap().computeIfPresent(roomId, (id, entry) -> {
+            if (entry.members() != null) {
+                entry.members().add(userId);
+            }
+            return entry;
+        });
+        roomsByUser.asMap().computeIfPresent(userId, (id, userSet) -> {
+            userSet.add(roomId);
+            return userSet;
+        });
+    }
+
+    private RoomEntry room(UUID roomId) {
+        RoomEntry entry = rooms.getIfPresent(roomId);
+        if (entry != null) {
+            return entry;
+        }
+        if (missingRooms.getIfPresent(roomId) != null) {
+            return null;
+        }
+
+        long epoch = roomEpoch.get();
+        Room.RoomType type = roomRepository.findRoomTypeById(roomId).orElse(null);
+        if (type == null) {
+            cache(missingRooms.asMap(), roomId, Boolean.TRUE, roomEpoch, epoch);
+            return null;
+        }
+        roomLoads.increment();
+        RoomEntry loaded = new RoomEntry(
+                type,
+                CompactUuidSet.of(roomRepository.findAdminIdsByRoomId(roomId)),
+                type == Room.RoomType.CHANNEL ? null : CompactUuidSet.of(roomRepository.findMemberIdsByRoomId(roomId))
+        );
+        return cache(rooms.asMap(), roomId, loaded, roomEpoch, epoch);
+    }
+
+    private CompactUuidSet userRooms(UUID userId) {
+        CompactUuidSet userSet = roomsByUser.getIfPresent(userId);
+        if (userSet != null) {
+            return userSet;
+        }
+
+        long epoch = userEpoch.get();
+        userLoads.increment();
+        CompactUuidSet loaded = CompactUuidSet.of(roomRepository.findRoomIdsByMemberId(userId));
+        return cache(roomsByUser.asMap(), userId, loaded, userEpoch, epoch);
+    }
+
+    /**
+     * Kiểm tra epoch và ghi trong cùng compute(): thay đổi tăng epoch trước rồi mới
+     * computeIfPresent trên cùng key, nên hoặc thay đổi thấy entry vừa ghi và áp dụng lên nó,
+     * hoặc compute thấy epoch đã đổi và không cache kết quả nạp cũ.
+     */
+    private static <V> V cache(ConcurrentMap<UUID, V> map, UUID key, V loaded, AtomicLong epochCounter, long epoch) {
+        V cached = map.compute(key, (id, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            return epochCounter.get() == epoch ? loaded : null;
+        });
+        return cached != null ? cached : loaded;
+    }
+
+    private void afterCommit(Runnable change) {
+        Runnable apply = () -> {
+            roomEpoch.incrementAndGet();
+            userEpoch.incrementAndGet();
+            change.run();
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    private record RoomEntry(Room.RoomType type, CompactUuidSet admins, CompactUuidSet members) {
+    }
+}
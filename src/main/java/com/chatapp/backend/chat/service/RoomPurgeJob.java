@@ -0,0 +1,99 @@
+package com.chatapp.backend.chat.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Xóa tin nhắn của các phòng đã bị xóa theo từng chunk nhỏ.
+ *
+ * deleteRoom chỉ ghi một dòng room_purge_jobs trong cùng transaction với việc xóa phòng.
+ * Mỗi lượt chạy xóa tối đa chunk-size tin nhắn của job cũ nhất trong một transaction ngắn
+ * rồi cộng dồn tiến độ, nên không giữ khóa lâu trên messages; tốc độ bị giới hạn bởi
+ * chunk-size / interval-ms. Trạng thái nằm trong database nên job tiếp tục sau khi restart.
+ * Dòng job được khóa bằng FOR UPDATE SKIP LOCKED nên nhiều instance có thể chạy cùng lúc.
+ *
+ * Bảng rollup thống kê không bị xóa: số liệu tin nhắn đã gửi được giữ lại.
+ */
+@Component
+@Slf4j
+public class RoomPurgeJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter messagesDeleted;
+
+    @Value("${chat.room-purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${chat.room-purge.retention-days:30}")
+    private int retentionDays;
+
+    public RoomPurgeJob(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.messagesDeleted = Counter.builder("chat.room-purge.messages.deleted").register(meterRegistry);
+    }
+
+    /**
+     * Đưa phòng vào hàng đợi xóa; chạy trong transaction của người gọi
+     */
+    public void enqueue(UUID roomId) {
+        jdbcTemplate.update("INSERT INTO room_purge_jobs (room_id) VALUES (?) ON CONFLICT DO NOTHING", roomId);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.room-purge.interval-ms:500}",
+            initialDelayString = "${chat.room-purge.interval-ms:500}")
+    public void purgeNextChunk() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<UUID> job = jdbcTemplate.queryForList(
+                    "SELECT room_id FROM room_purge_jobs WHERE completed_at IS NULL " +
+                    "ORDER BY created_at LIMIT 1 FOR UPDATE SKIP LOCKED",
+                    UUID.class);
+            if (job.isEmpty()) {
+                return;
+            }
+            UUID roomId = job.get(0);
+
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM messages WHERE id IN (SELECT id FROM messages WHERE room_id = ? LIMIT ?)",
+                    roomId, chunkSize);
+            boolean done = deleted < chunkSize;
+            jdbcTemplate.update(
+                    "UPDATE room_purge_jobs SET messages_deleted = messages_deleted + ?, updated_at = CURRENT_TIMESTAMP, " +
+                    "completed_at = CASE WHEN ? THEN CURRENT_TIMESTAMP END WHERE room_id = ?",
+                    deleted, done, roomId);
+            messagesDeleted.increment(deleted);
+
+            if (done) {
+                log.info("Purged room {}", roomId);
+            } else {
+                log.debug("Purged {} messages of room {}", deleted, roomId);
+            }
+        });
+    }
+
+    /**
+     * Dọn các job đã xong quá thời gian lưu
+     */
+    @Scheduled(cron = "${chat.room-purge.cleanup-cron:0 30 3 * * *}")
+    public void deleteCompletedJobs() {
+        int removed = jdbcTemplate.update(
+                "DELETE FROM room_purge_jobs WHERE completed_at < CURRENT_TIMESTAMP - make_interval(days => ?)",
+                retentionDays);
+        if (removed > 0) {
+            log.info("Removed {} completed room purge jobs", removed);
+        }
+    }
+}
@@ -1,22 +1,30 @@
 package com.chatapp.backend.chat.service;
 
+import com.chatapp.backend.chat.dto.AddMembersResponse;
 import com.chatapp.backend.chat.dto.CreateRoomRequest;
+import com.chatapp.backend.chat.dto.JoinResult;
 import com.chatapp.backend.chat.dto.RoomDto;
+import com.chatapp.backend.chat.dto.RoomMemberPage;
 import com.chatapp.backend.chat.entity.Room;
 import com.chatapp.backend.chat.repository.MessageRepository;
+import com.chatapp.backend.chat.repository.RoomMemberQueryRepository;
 import com.chatapp.backend.chat.repository.RoomRepository;
 import com.chatapp.backend.user.entity.User;
 import com.chatapp.backend.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +34,15 @@ public class RoomService {
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
     private final MessageRepository messageRepository;
+    private final RoomMembershipIndex membershipIndex;
+    private final RoomMemberQueryRepository roomMemberQueryRepository;
+    private final RoomPurgeJob roomPurgeJob;
+    
+    @Value("${chat.room.member-preview-size:5}")
+    private int memberPreviewSize;
+    
+    @Value("${chat.room.member-page-max-size:200}")
+    private int memberPageMaxSize;
     
     /**
      * Tạo phòng mới
@@ -43,58 +60,74 @@ public class RoomService {
                 .createdBy(creator)
                 .isPrivate(request.getIsPrivate())
                 .maxMembers(request.getMaxMembers())
-                .currentMemberCount(1) // Creator là member đầu tiên
                 .build();
         
-        // Thêm creator vào members và admins
-        room.addMember(creator);
-        room.addAdmin(creator);
-        
-        // Thêm các members khác nếu có
-        if (request.getMemberIds() != null && !request.getMemberIds().isEmpty()) {
-            for (UUID memberId : request.getMemberIds()) {
-                if (!memberId.equals(creatorId)) {
-                    User member = userRepository.findById(memberId)
-                            .orElseThrow(() -> new RuntimeException("User không tồn tại: " + memberId));
-                    room.addMember(member);
-                }
+        // Flush để có dòng rooms trước khi ghi thẳng vào các bảng nối
+        Room savedRoom = roomRepository.saveAndFlush(room);
+        UUID roomId = savedRoom.getId();
+        
+        // Creator là member và admin đầu tiên
+        roomRepository.insertMember(roomId, creatorId);
+        roomRepository.insertAdmin(roomId, creatorId);
+        membershipIndex.memberAdded(roomId, creatorId);
+        membershipIndex.adminAdded(roomId, creatorId);
+        
+        // Thêm các members khác nếu có, một câu lệnh cho cả danh sách
+        Set<UUID> memberIds = request.getMemberIds() != null ? new HashSet<>(request.getMemberIds()) : new HashSet<>();
+        memberIds.remove(creatorId);
+        if (request.getMaxMembers() != null && 1 + memberIds.size() > request.getMaxMembers()) {
+            throw new RuntimeException("Số thành viên vượt quá giới hạn của phòng");
+        }
+        if (!memberIds.isEmpty()) {
+            List<UUID> added = roomRepository.insertMembers(roomId, memberIds);
+            if (added.size() < memberIds.size()) {
+                memberIds.removeAll(added);
+                throw new RuntimeException("User không tồn tại: " + memberIds.iterator().next());
             }
+            membershipIndex.membersAdded(roomId, added);
         }
         
-        Room savedRoom = roomRepository.save(room);
-        return RoomDto.fromEntity(savedRoom);
+        // current_member_count được cập nhật trong database, entity đang giữ giá trị lúc insert
+        RoomDto dto = RoomDto.fromEntity(savedRoom);
+        dto.setCurrentMemberCount(1 + memberIds.size());
+        return withPreview(dto);
     }
     
     /**
-     * Tạo hoặc lấy phòng private giữa 2 user
+     * Tạo hoặc lấy phòng private giữa 2 user.
+     * Unique index (pair_low, pair_high) -> insert ON CONFLICT, gọi đồng thời vẫn chỉ có một phòng.
      */
     public RoomDto getOrCreatePrivateRoom(UUID user1Id, UUID user2Id) {
-        // Kiểm tra xem đã có phòng private giữa 2 user chưa
-        Optional<Room> existingRoom = roomRepository.findPrivateRoomBetweenUsers(user1Id, user2Id);
-        
-        if (existingRoom.isPresent()) {
-            return RoomDto.fromEntity(existingRoom.get());
+        if (user1Id.equals(user2Id)) {
+            throw new RuntimeException("Không thể tạo phòng private với chính mình");
         }
         
-        // Tạo phòng private mới
-        User user1 = userRepository.findById(user1Id)
-                .orElseThrow(() -> new RuntimeException("User 1 không tồn tại"));
-        User user2 = userRepository.findById(user2Id)
-                .orElseThrow(() -> new RuntimeException("User 2 không tồn tại"));
-        
-        Room privateRoom = Room.builder()
-                .name("Private Chat") // Tên mặc định cho private chat
-                .roomType(Room.RoomType.PRIVATE)
-                .createdBy(user1)
-                .isPrivate(true)
-                .currentMemberCount(2)
-                .build();
-        
-        privateRoom.addMember(user1);
-        privateRoom.addMember(user2);
+        Optional<UUID> existingRoomId = roomRepository.findPrivateRoomIdBetweenUsers(user1Id, user2Id);
+        if (existingRoomId.isEmpty()) {
+            if (!userRepository.existsById(user2Id)) {
+                throw new RuntimeException("User không tồn tại");
+            }
+            // Tên phòng là unique nên đặt theo cặp user thay vì một tên chung
+            UUID low = user1Id.compareTo(user2Id) < 0 ? user1Id : user2Id;
+            UUID high = low.equals(user1Id) ? user2Id : user1Id;
+            existingRoomId = roomRepository.insertPrivateRoom(UUID.randomUUID(), "private:" + low + ":" + high, user1Id, user2Id)
+                    .or(() -> roomRepository.findPrivateRoomIdBetweenUsers(user1Id, user2Id));
+        }
         
-        Room savedRoom = roomRepository.save(privateRoom);
-        return RoomDto.fromEntity(savedRoom);
+        Room room = existingRoomId.flatMap(roomRepository::findById)
+                .orElseThrow(() -> new RuntimeException("Không thể tạo phòng private"));
+        return privateRoomDto(room, user1Id, user2Id);
+    }
+    
+    // User đã rời phòng private được thêm lại khi mở lại cuộc trò chuyện
+    private RoomDto privateRoomDto(Room room, UUID user1Id, UUID user2Id) {
+        for (UUID userId : List.of(user1Id, user2Id)) {
+            if (!membershipIndex.isMember(room.getId(), userId)) {
+                roomRepository.insertMember(room.getId(), userId);
+                membershipIndex.memberAdded(room.getId(), userId);
+            }
+        }
+        return withPreview(RoomDto.fromEntity(room));
     }
     
     /**
@@ -103,14 +136,16 @@ public class RoomService {
     @Transactional(readOnly = true)
     public Page<RoomDto> getUserRooms(UUID userId, Pageable pageable) {
         Page<Room> rooms = roomRepository.findRoomsByMemberId(userId, pageable);
-        return rooms.map(room -> {
+        return withPreviews(rooms.map(room -> {
             RoomDto dto = RoomDto.fromEntity(room);
             dto.setIsMember(true);
-            dto.setIsAdmin(roomRepository.isUserAdminOfRoom(room.getId(), userId));
+            dto.setIsAdmin(membershipIndex.isAdmin(room.getId(), userId));
             dto.setIsCreator(room.getCreatedBy().getId().equals(userId));
-            dto.setUnreadMessageCount((int) messageRepository.countUnreadMessages(userId));
+            if (room.getRoomType() != Room.RoomType.CHANNEL) {
+                dto.setUnreadMessageCount((int) messageRepository.countUnreadMessages(userId));
+            }
             return dto;
-        });
+        }));
     }
     
     /**
@@ -122,17 +157,37 @@ public class RoomService {
                 .orElseThrow(() -> new RuntimeException("Phòng không tồn tại"));
         
         // Kiểm tra user có quyền xem phòng không
-        if (!roomRepository.isUserMemberOfRoom(roomId, userId)) {
+        if (!membershipIndex.isMember(roomId, userId)) {
             throw new RuntimeException("Bạn không có quyền truy cập phòng này");
         }
         
         RoomDto dto = RoomDto.fromEntity(room);
         dto.setIsMember(true);
-        dto.setIsAdmin(roomRepository.isUserAdminOfRoom(roomId, userId));
+        dto.setIsAdmin(membershipIndex.isAdmin(roomId, userId));
         dto.setIsCreator(room.getCreatedBy().getId().equals(userId));
-        dto.setUnreadMessageCount((int) messageRepository.countUnreadMessages(userId));
+        // Channel không theo dõi tin chưa đọc theo từng thành viên
+        if (room.getRoomType() != Room.RoomType.CHANNEL) {
+            dto.setUnreadMessageCount((int) messageRepository.countUnreadMessages(userId));
+        }
         
-        return dto;
+        return withPreview(dto);
+    }
+    
+    /**
+     * Lấy một trang thành viên phòng, đọc thẳng từ room_members theo keyset (after = nextCursor của trang trước)
+     */
+    @Transactional(readOnly = true)
+    public RoomMemberPage getRoomMembers(UUID roomId, UUID userId, UUID after, int size) {
+        if (!membershipIndex.isMember(roomId, userId)) {
+            throw new RuntimeException("Bạn không có quyền truy cập phòng này");
+        }
+        
+        int limit = Math.min(Math.max(size, 1), memberPageMaxSize);
+        List<RoomDto.RoomMemberDto> members = roomMemberQueryRepository.findMembersAfter(roomId, after, limit);
+        return RoomMemberPage.builder()
+                .members(members)
+                .nextCursor(members.size() == limit ? members.get(limit - 1).getId() : null)
+                .build();
     }
     
     /**
@@ -141,7 +196,7 @@ public class RoomService {
     @Transactional(readOnly = true)
     public Page<RoomDto> searchPublicRooms(String searchTerm, Pageable pageable) {
         Page<Room> rooms = roomRepository.findPublicRoomsByNameContaining(searchTerm, pageable);
-        return rooms.map(RoomDto::fromEntity);
+        return withPreviews(rooms.map(RoomDto::fromEntity));
     }
     
     /**
@@ -150,36 +205,28 @@ public class RoomService {
     @Transactional(readOnly = true)
     public Page<RoomDto> getJoinableRooms(UUID userId, Pageable pageable) {
         Page<Room> rooms = roomRepository.findJoinablePublicRooms(userId, pageable);
-        return rooms.map(RoomDto::fromEntity);
+        return withPreviews(rooms.map(RoomDto::fromEntity));
     }
     
     /**
      * Join phòng
      */
-    public void joinRoom(UUID roomId, UUID userId) {
+    public JoinResult joinRoom(UUID roomId, UUID userId) {
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> new RuntimeException("Phòng không tồn tại"));
         
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User không tồn tại"));
-        
         // Kiểm tra phòng có phải public không
         if (room.getIsPrivate()) {
             throw new RuntimeException("Không thể join phòng private");
         }
         
-        // Kiểm tra user đã là member chưa
-        if (roomRepository.isUserMemberOfRoom(roomId, userId)) {
-            throw new RuntimeException("Bạn đã là thành viên của phòng này");
-        }
-        
-        // Kiểm tra số lượng member
-        if (room.getMaxMembers() != null && room.getCurrentMemberCount() >= room.getMaxMembers()) {
-            throw new RuntimeException("Phòng đã đầy");
+        // Kiểm tra nhanh qua index, không cần khóa dòng rooms
+        if (membershipIndex.isMember(roomId, userId)) {
+            return JoinResult.ALREADY_MEMBER;
         }
         
-        room.addMember(user);
-        roomRepository.save(room);
+        // Kiểm tra số lượng member và thêm trong cùng một câu lệnh
+        return join(roomId, userId);
     }
     
     /**
@@ -189,11 +236,8 @@ public class RoomService {
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> new RuntimeException("Phòng không tồn tại"));
         
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User không tồn tại"));
-        
         // Kiểm tra user có phải là member không
-        if (!roomRepository.isUserMemberOfRoom(roomId, userId)) {
+        if (!membershipIndex.isMember(roomId, userId)) {
             throw new RuntimeException("Bạn không phải thành viên của phòng này");
         }
         
@@ -202,38 +246,59 @@ public class RoomService {
             throw new RuntimeException("Người tạo phòng không thể rời phòng");
         }
         
-        room.removeMember(user);
-        room.removeAdmin(user);
-        roomRepository.save(room);
+        removeMember(roomId, userId);
     }
     
     /**
      * Thêm member vào phòng (chỉ admin mới được)
      */
     public void addMemberToRoom(UUID roomId, UUID userId, UUID adminId) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("Phòng không tồn tại"));
+        if (membershipIndex.roomType(roomId).isEmpty()) {
+            throw new RuntimeException("Phòng không tồn tại");
+        }
         
         // Kiểm tra quyền admin
-        if (!roomRepository.isUserAdminOfRoom(roomId, adminId)) {
+        if (!membershipIndex.isAdmin(roomId, adminId)) {
             throw new RuntimeException("Bạn không có quyền thêm thành viên");
         }
         
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User không tồn tại"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User không tồn tại");
+        }
         
         // Kiểm tra user đã là member chưa
-        if (roomRepository.isUserMemberOfRoom(roomId, userId)) {
+        if (membershipIndex.isMember(roomId, userId)) {
             throw new RuntimeException("User đã là thành viên của phòng này");
         }
         
-        // Kiểm tra số lượng member
-        if (room.getMaxMembers() != null && room.getCurrentMemberCount() >= room.getMaxMembers()) {
-            throw new RuntimeException("Phòng đã đầy");
+        switch (join(roomId, userId)) {
+            case ROOM_FULL -> throw new RuntimeException("Phòng đã đầy");
+            case ALREADY_MEMBER -> throw new RuntimeException("User đã là thành viên của phòng này");
+            case JOINED -> { }
+        }
+    }
+    
+    /**
+     * Thêm nhiều member vào phòng trong một câu lệnh (chỉ admin mới được).
+     * User không tồn tại hoặc đã là thành viên được bỏ qua; phòng có max_members chỉ nhận tới khi đủ chỗ.
+     */
+    public AddMembersResponse addMembersToRoom(UUID roomId, Collection<UUID> userIds, UUID adminId) {
+        if (membershipIndex.roomType(roomId).isEmpty()) {
+            throw new RuntimeException("Phòng không tồn tại");
+        }
+        
+        // Kiểm tra quyền admin
+        if (!membershipIndex.isAdmin(roomId, adminId)) {
+            throw new RuntimeException("Bạn không có quyền thêm thành viên");
         }
         
-        room.addMember(user);
-        roomRepository.save(room);
+        Set<UUID> candidates = new HashSet<>(userIds);
+        List<UUID> added = roomRepository.insertMembers(roomId, candidates);
+        membershipIndex.membersAdded(roomId, added);
+        return AddMembersResponse.builder()
+                .added(added)
+                .skipped(candidates.size() - added.size())
+                .build();
     }
     
     /**
@@ -244,13 +309,10 @@ public class RoomService {
                 .orElseThrow(() -> new RuntimeException("Phòng không tồn tại"));
         
         // Kiểm tra quyền admin
-        if (!roomRepository.isUserAdminOfRoom(roomId, adminId)) {
+        if (!membershipIndex.isAdmin(roomId, adminId)) {
             throw new RuntimeException("Bạn không có quyền xóa thành viên");
         }
         
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User không tồn tại"));
-        
         // Không cho phép xóa creator
         if (room.getCreatedBy().getId().equals(userId)) {
             throw new RuntimeException("Không thể xóa người tạo phòng");
@@ -261,9 +323,11 @@ public class RoomService {
             throw new RuntimeException("Không thể xóa chính mình");
         }
         
-        room.removeMember(user);
-        room.removeAdmin(user);
-        roomRepository.save(room);
+        if (!membershipIndex.isMember(roomId, userId)) {
+            throw new RuntimeException("User không phải thành viên của phòng này");
+        }
+        
+        removeMember(roomId, userId);
     }
     
     /**
@@ -274,7 +338,7 @@ public class RoomService {
                 .orElseThrow(() -> new RuntimeException("Phòng không tồn tại"));
         
         // Kiểm tra quyền admin
-        if (!roomRepository.isUserAdminOfRoom(roomId, adminId)) {
+        if (!membershipIndex.isAdmin(roomId, adminId)) {
             throw new RuntimeException("Bạn không có quyền cập nhật phòng");
         }
         
@@ -284,7 +348,7 @@ public class RoomService {
         room.setMaxMembers(request.getMaxMembers());
         
         Room savedRoom = roomRepository.save(room);
-        return RoomDto.fromEntity(savedRoom);
+        return withPreview(RoomDto.fromEntity(savedRoom));
     }
     
     /**
@@ -300,6 +364,34 @@ public class RoomService {
         }
         
         roomRepository.delete(room);
+        // messages.room_id không có FK: tin nhắn của phòng được job nền xóa dần
+        roomPurgeJob.enqueue(roomId);
+        membershipIndex.roomDeleted(roomId);
+    }
+    
+    /**
+     * Kiểm tra phòng có phải CHANNEL (broadcast) không
+     */
+    @Transactional(readOnly = true)
+    public boolean isChannel(UUID roomId) {
+        return membershipIndex.isChannel(roomId);
+    }
+    
+    /**
+     * Kiểm tra quyền đăng tin vào phòng: phải là thành viên, CHANNEL chỉ admin được đăng
+     */
+    @Transactional(readOnly = true)
+    public void checkCanPost(UUID roomId, UUID userId) {
+        Room.RoomType roomType = membershipIndex.roomType(roomId)
+                .orElseThrow(() -> new RuntimeException("Phòng không tồn tại"));
+        
+        if (roomType == Room.RoomType.CHANNEL) {
+            if (!membershipIndex.isAdmin(roomId, userId)) {
+                throw new RuntimeException("Chỉ admin mới được đăng tin trong channel");
+            }
+        } else if (!membershipIndex.isMember(roomId, userId)) {
+            throw new RuntimeException("Bạn không phải thành viên của phòng này");
+        }
     }
     
     /**
@@ -312,5 +404,34 @@ public class RoomService {
         room.setLastMessageAt(java.time.LocalDateTime.now());
         roomRepository.save(room);
     }
+    
+    private RoomDto withPreview(RoomDto dto) {
+        dto.setMemberPreview(roomMemberQueryRepository.findMembersAfter(dto.getId(), null, memberPreviewSize));
+        return dto;
+    }
+    
+    // Preview cho cả trang trong một truy vấn thay vì mỗi phòng một truy vấn
+    private Page<RoomDto> withPreviews(Page<RoomDto> rooms) {
+        Map<UUID, List<RoomDto.RoomMemberDto>> previews = roomMemberQueryRepository.findPreviews(
+                rooms.getContent().stream().map(RoomDto::getId).toList(), memberPreviewSize);
+        rooms.forEach(dto -> dto.setMemberPreview(previews.getOrDefault(dto.getId(), List.of())));
+        return rooms;
+    }
+    
+    // Ghi thẳng vào bảng nối, không nạp collection members; current_member_count cập nhật trong cùng câu lệnh
+    private JoinResult join(UUID roomId, UUID userId) {
+        JoinResult result = roomRepository.joinMember(roomId, userId)
+                .map(JoinResult::valueOf)
+                .orElseThrow(() -> new RuntimeException("Phòng không tồn tại"));
+        if (result == JoinResult.JOINED) {
+            membershipIndex.memberAdded(roomId, userId);
+        }
+        return result;
+    }
+    
+    private void removeMember(UUID roomId, UUID userId) {
+        roomRepository.deleteMember(roomId, userId);
+        roomRepository.deleteAdmin(roomId, userId);
+        membershipIndex.memberRemoved(roomId, userId);
+    }
 }
-
@@ -0,0 +1,198 @@
+package com.chatapp.backend.chat.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Tập UUID gọn trong bộ nhớ: open addressing trên một mảng long (2 long mỗi slot),
+ * khoảng 16-32 byte mỗi phần tử thay vì ~100 byte của HashSet&lt;UUID&gt;.
+ *
+ * Đọc dùng optimistic read của StampedLock nên contains() không bị chặn bởi ghi.
+ * UUID (0, 0) được dùng làm slot trống nên không thể lưu.
+ */
+public class CompactUuidSet {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private final StampedLock lock = new StampedLock();
+    // slot i: table[2i] = mostSigBits, table[2i + 1] = leastSigBits
+    private long[] table;
+    private int size;
+
+    public CompactUuidSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public CompactUuidSet(int expectedSize) {
+        this.table = new long[2 * capacityFor(expectedSize)];
+    }
+
+    public static CompactUuidSet of(Collection<UUID> ids) {
+        CompactUuidSet set = new CompactUuidSet(ids.size());
+        for (UUID id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    public boolean add(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        requireNonEmpty(msb, lsb);
+
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 4L > (table.length / 2) * 3L) {
+                resize();
+            }
+            int slot = indexOf(table, msb, lsb);
+            if (slot >= 0) {
+                return false;
+            }
+            insert(table, msb, lsb);
+            size++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(UUID id) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = indexOf(table, id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (slot < 0) {
+                return false;
+            }
+            deleteAt(slot);
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean contains(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+
+        long stamp = lock.tryOptimisticRead();
+        boolean found = indexOf(table, msb, lsb) >= 0;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = indexOf(table, msb, lsb) >= 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<UUID> toList() {
+        long stamp = lock.readLock();
+        try {
+            List<UUID> ids = new ArrayList<>(size);
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != 0L || table[i + 1] != 0L) {
+                    ids.add(new UUID(table[i], table[i + 1]));
+                }
+            }
+            return ids;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Trả về slot chứa id hoặc -1. Số bước dò bị chặn bởi capacity nên an toàn cả khi đọc lạc quan
+    private static int indexOf(long[] table, long msb, long lsb) {
+        int capacity = table.length / 2;
+        int mask = capacity - 1;
+        int slot = hash(msb, lsb) & mask;
+        for (int probes = 0; probes < capacity; probes++) {
+            long storedMsb = table[2 * slot];
+            long storedLsb = table[2 * slot + 1];
+            if (storedMsb == 0L && storedLsb == 0L) {
+                return -1;
+            }
+            if (storedMsb == msb && storedLsb == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static void insert(long[] table, long msb, long lsb) {
+        int mask = table.length / 2 - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (table[2 * slot] != 0L || table[2 * slot + 1] != 0L) {
+            slot = (slot + 1) & mask;
+        }
+        table[2 * slot] = msb;
+        table[2 * slot + 1] = lsb;
+    }
+
+    // Xóa kiểu backward-shift: dời các phần tử phía sau về để chuỗi dò không bị đứt
+    private void deleteAt(int slot) {
+        int mask = table.length / 2 - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (table[2 * next] != 0L || table[2 * next + 1] != 0L) {
+            int home = hash(table[2 * next], table[2 * next + 1]) & mask;
+            // Phần tử ở next được dời về hole nếu home của nó không nằm trong (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[2 * hole] = table[2 * next];
+                table[2 * hole + 1] = table[2 * next + 1];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[2 * hole] = 0L;
+        table[2 * hole + 1] = 0L;
+    }
+
+    private void resize() {
+        long[] resized = new long[table.length * 2];
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != 0L || table[i + 1] != 0L) {
+                insert(resized, table[i], table[i + 1]);
+            }
+        }
+        table = resized;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        return (int) h;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L < expectedSize * 4L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void requireNonEmpty(long msb, long lsb) {
+        if (msb == 0L && lsb == 0L) {
+            throw new IllegalArgumentException("UUID rỗng không được hỗ trợ");
+        }
+    }
+}
@@ -136,4 +136,24 @@ public class ApiResponseGroups {
         @ApiResponse(responseCode = HttpStatusCodes.INTERNAL_SERVER_ERROR, description = "Internal server error")
     })
     public @interface ServerErrorResponse {}
+    
+    /**
+     * Common responses for rate limited requests (429)
+     */
+    @Target({ElementType.METHOD})
+    @Retention(RetentionPolicy.RUNTIME)
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = HttpStatusCodes.TOO_MANY_REQUESTS, description = "Too many requests - retry after the Retry-After delay")
+    })
+    public @interface TooManyRequestsResponse {}
+    
+    /**
+     * Common responses for overload errors (503)
+     */
+    @Target({ElementType.METHOD})
+    @Retention(RetentionPolicy.RUNTIME)
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = HttpStatusCodes.SERVICE_UNAVAILABLE, description = "Server overloaded - retry later")
+    })
+    public @interface ServiceUnavailableResponse {}
 }
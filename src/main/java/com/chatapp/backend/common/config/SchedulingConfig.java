@@ -0,0 +1,30 @@
+package com.chatapp.backend.common.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Bật @Scheduled cho các tác vụ nền (typing digest, dọn state hết hạn...)
+ *
+ * Dùng scheduler riêng tên "taskScheduler" để các job nền không chiếm
+ * thread của messageBrokerTaskScheduler (heartbeat STOMP).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    @Value("${chat.scheduling.pool-size:4}")
+    private int poolSize;
+
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("chat-scheduler-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
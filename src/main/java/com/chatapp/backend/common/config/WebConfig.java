@@ -1,7 +1,11 @@
 package com.chatapp.backend.common.config;
 
+import com.chatapp.backend.chat.dto.LeanPayloads;
 import com.chatapp.backend.common.resolvers.CurrentUserIdArgumentResolver;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -9,7 +13,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import java.util.List;
 
 /**
- * Cấu hình Web MVC để đăng ký custom argument resolvers
+ * Cấu hình Web MVC để đăng ký custom argument resolvers và cấu hình JSON của REST API
  */
 @Configuration
 @RequiredArgsConstructor
@@ -21,5 +25,10 @@ public class WebConfig implements WebMvcConfigurer {
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
         resolvers.add(currentUserIdArgumentResolver);
     }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer leanPayloadCustomizer(@Value("${chat.payload.lean-mode:false}") boolean leanMode) {
+        return builder -> LeanPayloads.configure(builder, leanMode);
+    }
 }
 
@@ -16,9 +16,11 @@ public final class HttpStatusCodes {
     public static final String FORBIDDEN = "403";
     public static final String NOT_FOUND = "404";
     public static final String CONFLICT = "409";
+    public static final String TOO_MANY_REQUESTS = "429";
     
     // Server error responses
     public static final String INTERNAL_SERVER_ERROR = "500";
+    public static final String SERVICE_UNAVAILABLE = "503";
     
     private HttpStatusCodes() {
         // Prevent instantiation
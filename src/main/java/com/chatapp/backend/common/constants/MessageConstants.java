@@ -16,16 +16,21 @@ public final class MessageConstants {
     public static final String AUTH_REGISTER_SUCCESS = "Đăng ký thành công";
     public static final String AUTH_LOGIN_SUCCESS = "Đăng nhập thành công";
     public static final String AUTH_REFRESH_SUCCESS = "Làm mới token thành công";
+    public static final String AUTH_LOGOUT_SUCCESS = "Đăng xuất thành công";
     public static final String AUTH_INVALID_CREDENTIALS = "Thông tin đăng nhập không chính xác";
     
     // User management messages
     public static final String USER_CREATED = "Tạo người dùng thành công";
+    public static final String USERS_IMPORTED = "Nhập danh sách người dùng hoàn tất";
     public static final String USER_UPDATED = "Cập nhật người dùng thành công";
     public static final String USER_DELETED = "Xóa người dùng thành công";
     public static final String USER_RETRIEVED = "Lấy thông tin người dùng thành công";
     public static final String USERS_RETRIEVED = "Lấy danh sách người dùng thành công";
     public static final String USER_PROMOTED = "Thăng cấp người dùng thành công";
     public static final String USER_DEMOTED = "Hạ cấp người dùng thành công";
+    public static final String ANALYTICS_RETRIEVED = "Lấy số liệu thống kê thành công";
+    public static final String PROFILES_RETRIEVED = "Lấy profile người dùng thành công";
+    public static final String PRESENCE_RETRIEVED = "Lấy trạng thái online thành công";
     
     // Message management messages
     public static final String MESSAGES_RETRIEVED = "Lấy tin nhắn thành công";
@@ -38,6 +43,8 @@ public final class MessageConstants {
     public static final String ERROR_VALIDATION = "Dữ liệu không hợp lệ";
     public static final String ERROR_NOT_FOUND = "Không tìm thấy dữ liệu";
     public static final String ERROR_SERVER = "Lỗi hệ thống không mong muốn";
+    public static final String ERROR_SERVICE_OVERLOADED = "Hệ thống đang quá tải, vui lòng thử lại sau";
+    public static final String ERROR_TOO_MANY_REQUESTS = "Bạn thao tác quá nhanh, vui lòng thử lại sau";
     public static final String ERROR_UNAUTHORIZED = "Không có quyền truy cập";
     public static final String ERROR_CONFLICT = "Dữ liệu đã tồn tại";
     public static final String ERROR_USERNAME_EXISTS = "Username already exists";
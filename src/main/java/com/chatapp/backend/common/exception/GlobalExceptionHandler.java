@@ -3,6 +3,7 @@ package com.chatapp.backend.common.exception;
 import com.chatapp.backend.common.annotations.ApiResponseGroups;
 import com.chatapp.backend.common.constants.MessageConstants;
 import com.chatapp.backend.common.dto.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -50,6 +51,14 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.notFound(ex.getMessage()));
     }
     
+    @ExceptionHandler(ServiceOverloadedException.class)
+    @ApiResponseGroups.ServiceUnavailableResponse
+    public ResponseEntity<ApiResponse<Void>> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), MessageConstants.ERROR_SERVICE_OVERLOADED));
+    }
+    
     @ExceptionHandler(RuntimeException.class)
     @ApiResponseGroups.RuntimeErrorResponse
     public ResponseEntity<ApiResponse<Void>> handleRuntimeException(RuntimeException ex) {
@@ -0,0 +1,18 @@
+package com.chatapp.backend.common.exception;
+
+/**
+ * Tài nguyên giới hạn (vd. thread hash mật khẩu) đã đầy, client nên thử lại sau
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
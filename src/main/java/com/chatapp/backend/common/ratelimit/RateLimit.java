@@ -0,0 +1,35 @@
+package com.chatapp.backend.common.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Một giới hạn token bucket: tối đa capacity request dồn một lúc,
+ * hồi lại refillPerMinute token mỗi phút.
+ */
+public record RateLimit(String name, int capacity, int refillPerMinute) {
+
+    public RateLimit {
+        if (capacity <= 0 || refillPerMinute <= 0) {
+            throw new IllegalArgumentException("Rate limit " + name + " phải có capacity và refill dương");
+        }
+    }
+
+    /**
+     * Đọc cấu hình dạng "capacity:refillPerMinute", ví dụ "30:120"
+     */
+    public static RateLimit parse(String name, String spec) {
+        String[] parts = spec.trim().split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Cấu hình rate limit không hợp lệ cho " + name + ": " + spec);
+        }
+        return new RateLimit(name, Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+    }
+
+    long refillIntervalNanos() {
+        return TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+    }
+
+    long burstNanos() {
+        return refillIntervalNanos() * capacity;
+    }
+}
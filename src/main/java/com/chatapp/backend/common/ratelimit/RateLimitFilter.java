@@ -0,0 +1,110 @@
+package com.chatapp.backend.common.ratelimit;
+
+import com.chatapp.backend.common.constants.AppConstants;
+import com.chatapp.backend.common.constants.MessageConstants;
+import com.chatapp.backend.common.dto.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tần suất cho các endpoint HTTP đắt: đăng nhập/đăng ký/refresh theo IP
+ * (BCrypt, chưa có user), gửi tin nhắn theo user. Chạy sau JwtAuthenticationFilter
+ * để biết user hiện tại; vượt giới hạn trả 429 kèm Retry-After.
+ *
+ * IP lấy từ getRemoteAddr(): với server.forward-headers-strategy=native, Tomcat đã thay bằng
+ * IP client trong X-Forwarded-For khi request đi qua proxy tin cậy, nên mọi client sau cùng
+ * một reverse proxy không dùng chung một bucket.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${chat.ratelimit.http.login:10:10}")
+    private String loginSpec;
+
+    @Value("${chat.ratelimit.http.register:5:5}")
+    private String registerSpec;
+
+    @Value("${chat.ratelimit.http.refresh:20:20}")
+    private String refreshSpec;
+
+    @Value("${chat.ratelimit.http.message:30:120}")
+    private String messageSpec;
+
+    private RateLimit loginLimit;
+    private RateLimit registerLimit;
+    private RateLimit refreshLimit;
+    private RateLimit messageLimit;
+
+    @PostConstruct
+    void init() {
+        loginLimit = RateLimit.parse("http.login", loginSpec);
+        registerLimit = RateLimit.parse("http.register", registerSpec);
+        refreshLimit = RateLimit.parse("http.refresh", refreshSpec);
+        messageLimit = RateLimit.parse("http.message", messageSpec);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        long waitNanos = switch (path) {
+            case AppConstants.AUTH_PATH + "/login" -> rateLimiter.tryAcquire(loginLimit, request.getRemoteAddr());
+            case AppConstants.AUTH_PATH + "/register" -> rateLimiter.tryAcquire(registerLimit, request.getRemoteAddr());
+            case AppConstants.AUTH_PATH + "/refresh" -> rateLimiter.tryAcquire(refreshLimit, request.getRemoteAddr());
+            case AppConstants.MESSAGE_PATH -> rateLimiter.tryAcquire(messageLimit, currentUserKey(request));
+            default -> 0;
+        };
+
+        if (waitNanos > 0) {
+            reject(response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Theo user khi đã xác thực (getName() của AuthenticatedUser là userId), ngược lại theo IP
+    private String currentUserKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getWriter(),
+                ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS.value(), MessageConstants.ERROR_TOO_MANY_REQUESTS));
+    }
+}
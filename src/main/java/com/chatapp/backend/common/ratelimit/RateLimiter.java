@@ -0,0 +1,86 @@
+package com.chatapp.backend.common.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket theo key (userId, IP...) cho từng giới hạn.
+ *
+ * Mỗi bucket chỉ là một AtomicLong lưu "thời điểm bucket đầy trở lại" (GCRA): lấy
+ * một token là dời mốc thêm một khoảng refill bằng CAS, không khóa và không có
+ * thread nền refill. Bucket có mốc đã qua tức là đã đầy lại, tương đương bucket mới,
+ * nên việc dọn định kỳ bỏ chúng đi mà không đổi kết quả. Số key bị chặn bởi maxKeys:
+ * khi đầy, bucket ít được dùng nhất bị bỏ (Caffeine), còn key mới vẫn luôn có bucket
+ * riêng, nên việc tràn bảng không mở đường cho request vượt giới hạn.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final Map<String, Counter> rejectedCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.ratelimit.enabled:true}")
+    private boolean enabled = true;
+
+    public RateLimiter(MeterRegistry meterRegistry, @Value("${chat.ratelimit.max-keys:100000}") int maxKeys) {
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .build();
+        Gauge.builder("chat.ratelimit.buckets", buckets, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Lấy một token của bucket (limit, key).
+     *
+     * @return 0 nếu được phép, ngược lại số nano giây cần chờ tới khi có token
+     */
+    public long tryAcquire(RateLimit limit, String key) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        // Bucket mới coi như đầy: mốc đầy lại là hiện tại
+        AtomicLong bucket = buckets.get(limit.name() + ':' + key, k -> new AtomicLong(now));
+
+        long interval = limit.refillIntervalNanos();
+        long burst = limit.burstNanos();
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + interval;
+            if (next - now > burst) {
+                rejected(limit).increment();
+                return next - now - burst;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Bỏ các bucket đã đầy lại: không còn khác gì bucket mới
+    @Scheduled(fixedDelayString = "${chat.ratelimit.sweep-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.asMap().values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    private Counter rejected(RateLimit limit) {
+        return rejectedCounters.computeIfAbsent(limit.name(), name -> Counter.builder("chat.ratelimit.rejected")
+                .tag("limit", name)
+                .register(meterRegistry));
+    }
+}
@@ -1,5 +1,7 @@
 package com.chatapp.backend.common.resolvers;
 
+import com.chatapp.backend.auth.jwt.AuthenticatedUser;
+import com.chatapp.backend.auth.security.UserAccountDetails;
 import com.chatapp.backend.common.annotations.CurrentUserId;
 import com.chatapp.backend.user.entity.User;
 import com.chatapp.backend.user.repository.UserRepository;
@@ -18,7 +20,8 @@ import java.util.UUID;
 /**
  * ArgumentResolver để tự động inject current user ID từ SecurityContext.
  *
- * Hỗ trợ 2 trường hợp:
+ * Hỗ trợ các trường hợp:
+ * - Principal là AuthenticatedUser (token chứa claim uid) → lấy trực tiếp, không tra DB
  * - Principal name là UUID (token chứa userId)
  * - Principal name là username/email (token chứa username) → tra DB lấy userId
  */
@@ -45,14 +48,22 @@ public class CurrentUserIdArgumentResolver implements HandlerMethodArgumentResol
 			throw new RuntimeException("User not authenticated");
 		}
 
+		// Token mới: userId có sẵn trong principal dựng từ claims
+		if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+			return user.userId();
+		}
+
+		if (authentication.getPrincipal() instanceof UserAccountDetails account) {
+			return account.getUser().getId();
+		}
+
 		String principalName = authentication.getName();
 		try {
 			return UUID.fromString(principalName);
 		} catch (IllegalArgumentException ignored) {
 			// Not a UUID → try resolve by username or email
-			User user = userRepository.findByUsername(principalName)
-					.orElseGet(() -> userRepository.findByEmail(principalName)
-								.orElseThrow(() -> new RuntimeException("Authenticated user not found")));
+			User user = userRepository.findByUsernameOrEmail(principalName)
+					.orElseThrow(() -> new RuntimeException("Authenticated user not found"));
 			return user.getId();
 		}
 	}
@@ -0,0 +1,29 @@
+package com.chatapp.backend.presence.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Trạng thái online của user")
+public class PresenceDto {
+
+    @Schema(description = "User ID", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID userId;
+
+    @Schema(description = "User đang online (ít nhất một thiết bị kết nối)", example = "true")
+    private boolean online;
+
+    @Schema(description = "Thời điểm offline gần nhất (null nếu đang online hoặc chưa rõ)")
+    private LocalDateTime lastSeenAt;
+}
@@ -0,0 +1,25 @@
+package com.chatapp.backend.presence.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Truy vấn trạng thái online cho nhiều user")
+public class PresenceQueryRequest {
+
+    @NotEmpty(message = "Danh sách userIds không được để trống")
+    @Size(max = 5000, message = "Tối đa 5000 userIds mỗi lần truy vấn")
+    @Schema(description = "Danh sách user ID cần kiểm tra")
+    private List<UUID> userIds;
+}
@@ -0,0 +1,25 @@
+package com.chatapp.backend.presence.interceptor;
+
+import com.chatapp.backend.presence.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mọi frame inbound (kể cả heartbeat STOMP) được tính là tín hiệu còn sống của session
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceChannelInterceptor implements ChannelInterceptor {
+
+    private final PresenceService presenceService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        presenceService.touch(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        return message;
+    }
+}
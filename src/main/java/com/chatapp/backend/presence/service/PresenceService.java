@@ -0,0 +1,212 @@
+package com.chatapp.backend.presence.service;
+
+import com.chatapp.backend.presence.dto.PresenceDto;
+import com.chatapp.backend.user.repository.UserRepository;
+import com.chatapp.backend.websocket.session.WebSocketSessionRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quản lý trạng thái online của user.
+ *
+ * - Đếm số session theo user (nhiều thiết bị): online khi có session đầu tiên,
+ *   offline khi session cuối cùng đóng hoặc hết heartbeat.
+ * - Thay đổi trạng thái chỉ gửi tới những user đang online có chung room
+ *   hoặc cuộc trò chuyện, qua /user/{id}/queue/presence. Danh sách liên hệ được cache
+ *   (giới hạn số user, hết hạn sau contacts-ttl-ms) vì truy vấn quét room_members và messages.
+ * - lastSeen chỉ giữ tối đa last-seen-max user offline gần nhất.
+ */
+@Service
+@Slf4j
+public class PresenceService {
+
+    private final UserRepository userRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketSessionRegistry sessionRegistry;
+
+    @Value("${chat.presence.heartbeat-timeout-ms:30000}")
+    private long heartbeatTimeoutMillis;
+
+    private final Map<String, SessionInfo> sessions = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> sessionCounts = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> lastSeen;
+    private final Cache<UUID, List<UUID>> contacts;
+    private final Set<UUID> onlineUsers = ConcurrentHashMap.newKeySet();
+
+    public PresenceService(UserRepository userRepository,
+                           SimpMessagingTemplate messagingTemplate,
+                           WebSocketSessionRegistry sessionRegistry,
+                           @Value("${chat.presence.last-seen-max:100000}") int lastSeenMax,
+                           @Value("${chat.presence.contacts-cache-size:20000}") int contactsCacheSize,
+                           @Value("${chat.presence.contacts-ttl-ms:300000}") long contactsTtlMillis) {
+        this.userRepository = userRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.sessionRegistry = sessionRegistry;
+        this.lastSeen = Caffeine.newBuilder()
+                .maximumSize(lastSeenMax)
+                .<UUID, Long>build()
+                .asMap();
+        this.contacts = Caffeine.newBuilder()
+                .maximumSize(contactsCacheSize)
+                .expireAfterWrite(Duration.ofMillis(contactsTtlMillis))
+                .build();
+    }
+
+    /**
+     * Đăng ký session của user (gọi lại nhiều lần cho cùng session là an toàn)
+     */
+    public void sessionConnected(String sessionId, UUID userId) {
+        if (sessionId == null || userId == null) {
+            return;
+        }
+        SessionInfo existing = sessions.putIfAbsent(sessionId, new SessionInfo(userId, System.currentTimeMillis()));
+        if (existing != null) {
+            existing.lastHeartbeatAt = System.currentTimeMillis();
+            return;
+        }
+
+        boolean[] cameOnline = new boolean[1];
+        sessionCounts.compute(userId, (id, count) -> {
+            if (count == null) {
+                // Cập nhật trong compute để giữ thứ tự với disconnect của cùng user
+                cameOnline[0] = true;
+                onlineUsers.add(id);
+                lastSeen.remove(id);
+                return 1;
+            }
+            return count + 1;
+        });
+
+        if (cameOnline[0]) {
+            publishChange(userId, true, null);
+        }
+    }
+
+    public void sessionDisconnected(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        SessionInfo info = sessions.remove(sessionId);
+        if (info == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean[] wentOffline = new boolean[1];
+        sessionCounts.computeIfPresent(info.userId, (id, count) -> {
+            if (count <= 1) {
+                wentOffline[0] = true;
+                onlineUsers.remove(id);
+                lastSeen.put(id, now);
+                return null;
+            }
+            return count - 1;
+        });
+
+        if (wentOffline[0]) {
+            publishChange(info.userId, false, now);
+        }
+    }
+
+    /**
+     * Ghi nhận heartbeat / frame bất kỳ từ session
+     */
+    public void touch(String sessionId) {
+        SessionInfo info = sessionId != null ? sessions.get(sessionId) : null;
+        if (info != null) {
+            info.lastHeartbeatAt = System.currentTimeMillis();
+        }
+    }
+
+    public boolean isOnline(UUID userId) {
+        return onlineUsers.contains(userId);
+    }
+
+    public int getOnlineUserCount() {
+        return onlineUsers.size();
+    }
+
+    /**
+     * Truy vấn trạng thái cho nhiều user cùng lúc (chỉ đọc bộ nhớ)
+     */
+    public List<PresenceDto> getPresence(List<UUID> userIds) {
+        List<PresenceDto> result = new ArrayList<>(userIds.size());
+        for (UUID userId : userIds) {
+            boolean online = onlineUsers.contains(userId);
+            Long seenAt = online ? null : lastSeen.get(userId);
+            result.add(PresenceDto.builder()
+                    .userId(userId)
+                    .online(online)
+                    .lastSeenAt(toDateTime(seenAt))
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Đóng các session không gửi heartbeat trong khoảng timeout: đóng cả socket,
+     * không chỉ đánh dấu offline, để client biết mà kết nối lại
+     */
+    @Scheduled(fixedDelayString = "${chat.presence.sweep-interval-ms:10000}")
+    public void sweepStaleSessions() {
+        long deadline = System.currentTimeMillis() - heartbeatTimeoutMillis;
+        sessions.forEach((sessionId, info) -> {
+            if (info.lastHeartbeatAt < deadline) {
+                log.info("Presence session {} of user {} timed out", sessionId, info.userId);
+                sessionDisconnected(sessionId);
+                sessionRegistry.close(sessionId, CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        });
+    }
+
+    private void publishChange(UUID userId, boolean online, Long seenAt) {
+        PresenceDto change = PresenceDto.builder()
+                .userId(userId)
+                .online(online)
+                .lastSeenAt(toDateTime(seenAt))
+                .build();
+
+        try {
+            for (UUID contactId : contacts.get(userId, userRepository::findContactIds)) {
+                if (onlineUsers.contains(contactId)) {
+                    messagingTemplate.convertAndSendToUser(contactId.toString(), "/queue/presence", change);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to publish presence change for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private LocalDateTime toDateTime(Long epochMillis) {
+        return epochMillis != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault())
+                : null;
+    }
+
+    private static final class SessionInfo {
+        private final UUID userId;
+        private volatile long lastHeartbeatAt;
+
+        private SessionInfo(UUID userId, long lastHeartbeatAt) {
+            this.userId = userId;
+            this.lastHeartbeatAt = lastHeartbeatAt;
+        }
+    }
+}
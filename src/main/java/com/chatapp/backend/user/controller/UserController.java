@@ -6,11 +6,16 @@ import com.chatapp.backend.common.constants.HttpStatusCodes;
 import com.chatapp.backend.common.constants.MessageConstants;
 import com.chatapp.backend.common.dto.ApiResponse;
 import com.chatapp.backend.common.utils.ResponseUtils;
+import com.chatapp.backend.presence.dto.PresenceDto;
+import com.chatapp.backend.presence.dto.PresenceQueryRequest;
+import com.chatapp.backend.presence.service.PresenceService;
 import com.chatapp.backend.user.dto.UserListItemDto;
+import com.chatapp.backend.user.dto.UserProfileDto;
 import com.chatapp.backend.user.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -18,6 +23,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -27,6 +33,7 @@ import java.util.UUID;
 public class UserController {
 
     private final UserService userService;
+    private final PresenceService presenceService;
 
     @GetMapping
     @Operation(summary = "Danh sách người dùng để nhắn tin", description = "Trả về danh sách người dùng (loại trừ bản thân), hỗ trợ tìm kiếm theo username/email và phân trang")
@@ -44,6 +51,23 @@ public class UserController {
         Page<UserListItemDto> result = userService.listUsersForChat(currentUserId, q, pageable);
         return ResponseEntity.ok(ResponseUtils.createPaginatedResponse(result, page, pageSize, MessageConstants.USERS_RETRIEVED));
     }
-}
 
+    @GetMapping("/profiles")
+    @Operation(summary = "Lấy profile theo danh sách id", description = "Trả về username/avatar/profileVersion cho tối đa 500 id; truyền since để chỉ lấy profile thay đổi sau version đó")
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Lấy profile thành công")
+    public ResponseEntity<ApiResponse<List<UserProfileDto>>> getProfiles(
+            @Parameter(description = "Danh sách user id, phân tách bằng dấu phẩy") @RequestParam("ids") List<UUID> ids,
+            @Parameter(description = "Chỉ trả về profile có version lớn hơn giá trị này", example = "42") @RequestParam(value = "since", required = false) Long since) {
+        List<UserProfileDto> profiles = userService.getProfiles(ids, since);
+        return ResponseEntity.ok(ApiResponse.success(profiles, MessageConstants.PROFILES_RETRIEVED));
+    }
+
+    @PostMapping("/presence")
+    @Operation(summary = "Trạng thái online của nhiều người dùng", description = "Trả về trạng thái online/lastSeen cho danh sách userIds (tối đa 5000), chỉ đọc từ bộ nhớ")
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatusCodes.OK, description = "Lấy trạng thái thành công")
+    public ResponseEntity<ApiResponse<List<PresenceDto>>> getPresence(@Valid @RequestBody PresenceQueryRequest request) {
+        List<PresenceDto> presence = presenceService.getPresence(request.getUserIds());
+        return ResponseEntity.ok(ApiResponse.success(presence, MessageConstants.PRESENCE_RETRIEVED));
+    }
+}
 
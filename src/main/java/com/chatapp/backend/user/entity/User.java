@@ -47,4 +47,9 @@ public class User {
     @UpdateTimestamp
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
+    
+    // Do database sinh (sequence + trigger), tăng khi username/avatar thay đổi. Không đọc lại
+    // sau mỗi lần ghi: giá trị trên entity vừa insert/update chỉ đúng khi nạp lại từ database
+    @Column(name = "profile_version", insertable = false, updatable = false)
+    private Long profileVersion;
 }
@@ -4,10 +4,14 @@ import com.chatapp.backend.user.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,12 +22,42 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     
     Optional<User> findByEmail(String email);
     
+    // Đăng nhập bằng username hoặc email trong một truy vấn; ưu tiên khớp username
+    @Query(value = "SELECT * FROM users u WHERE u.username = :login OR u.email = :login " +
+                   "ORDER BY (u.username = :login) DESC LIMIT 1", nativeQuery = true)
+    Optional<User> findByUsernameOrEmail(@Param("login") String login);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") UUID id, @Param("password") String password);
+    
     boolean existsByUsername(String username);
     
+    // Kiểm tra trùng theo lô khi import nhiều user
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+    
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
     boolean existsByEmail(String email);
     
     @Query(value = "SELECT * FROM users u WHERE u.id != :currentUserId AND (:q IS NULL OR LOWER(u.username) LIKE LOWER(CONCAT('%', :q, '%')) OR LOWER(u.email) LIKE LOWER(CONCAT('%', :q, '%')))", nativeQuery = true)
     Page<User> searchAllExceptCurrent(@Param("currentUserId") UUID currentUserId,
                                       @Param("q") String query,
                                       Pageable pageable);
+    
+    // Những user có chung room hoặc đã nhắn tin 1-1 với user (đối tượng nhận presence)
+    @Query(value = "SELECT rm2.user_id FROM room_members rm1 " +
+                   "JOIN room_members rm2 ON rm2.room_id = rm1.room_id " +
+                   "WHERE rm1.user_id = :userId AND rm2.user_id <> :userId " +
+                   "UNION " +
+                   "SELECT m.receiver_id FROM messages m WHERE m.sender_id = :userId AND m.receiver_id IS NOT NULL " +
+                   "UNION " +
+                   "SELECT m.sender_id FROM messages m WHERE m.receiver_id = :userId", nativeQuery = true)
+    List<UUID> findContactIds(@Param("userId") UUID userId);
+    
+    // Profile thay đổi sau version client đang cache (dùng index profile_version)
+    List<User> findByIdInAndProfileVersionGreaterThan(Collection<UUID> ids, Long profileVersion);
 }
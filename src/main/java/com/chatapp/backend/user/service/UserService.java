@@ -1,39 +1,55 @@
 package com.chatapp.backend.user.service;
 
+import com.chatapp.backend.auth.security.UserAccountDetails;
 import com.chatapp.backend.user.dto.UserListItemDto;
+import com.chatapp.backend.user.dto.UserProfileDto;
 import com.chatapp.backend.user.entity.User;
 import com.chatapp.backend.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
+
+	private static final int MAX_PROFILE_IDS = 500;
 
 	private final UserRepository userRepository;
 
 	// Spring Security method
 	@Override
 	public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-		User user = userRepository.findByUsername(usernameOrEmail)
-				.orElseGet(() -> userRepository.findByEmail(usernameOrEmail)
-						.orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail)));
-
-		return new org.springframework.security.core.userdetails.User(
-				user.getUsername(),
-				user.getPassword(),
-				Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
-		);
+		User user = userRepository.findByUsernameOrEmail(usernameOrEmail)
+				.orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail));
+		return new UserAccountDetails(user);
+	}
+
+	// Gọi bởi DaoAuthenticationProvider khi hash cũ dùng cost khác cấu hình hiện tại
+	@Override
+	public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+		if (userDetails instanceof UserAccountDetails account) {
+			User user = account.getUser();
+			userRepository.updatePassword(user.getId(), newPassword);
+			user.setPassword(newPassword);
+			return account;
+		}
+		userRepository.findByUsername(userDetails.getUsername())
+				.ifPresent(user -> userRepository.updatePassword(user.getId(), newPassword));
+		return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+				.password(newPassword)
+				.build();
 	}
 
 	// Business logic methods
@@ -42,6 +58,31 @@ public class UserService implements UserDetailsService {
 		return page.map(mapToUserListItemDto());
 	}
 
+	/**
+	 * Lấy profile theo danh sách id; nếu có since thì chỉ trả về profile có version mới hơn
+	 */
+	public List<UserProfileDto> getProfiles(List<UUID> ids, Long since) {
+		Set<UUID> uniqueIds = new LinkedHashSet<>(ids);
+		if (uniqueIds.size() > MAX_PROFILE_IDS) {
+			throw new RuntimeException("Tối đa " + MAX_PROFILE_IDS + " user mỗi lần truy vấn");
+		}
+		if (uniqueIds.isEmpty()) {
+			return List.of();
+		}
+
+		List<User> users = since != null
+				? userRepository.findByIdInAndProfileVersionGreaterThan(uniqueIds, since)
+				: userRepository.findAllById(uniqueIds);
+		return users.stream()
+				.map(user -> UserProfileDto.builder()
+						.id(user.getId())
+						.username(user.getUsername())
+						.avatar(user.getAvatar())
+						.profileVersion(user.getProfileVersion())
+						.build())
+				.toList();
+	}
+
 	private String normalizeQuery(String query) {
 		if (query == null || query.isBlank()) {
 			return null;
@@ -1,10 +1,35 @@
 package com.chatapp.backend.websocket;
 
+import com.chatapp.backend.chat.dto.LeanPayloads;
+import com.chatapp.backend.presence.interceptor.PresenceChannelInterceptor;
+import com.chatapp.backend.websocket.batching.BatchingDecoratorFactory;
+import com.chatapp.backend.websocket.converter.CborMessageConverter;
+import com.chatapp.backend.websocket.converter.WireFormatJsonMessageConverter;
+import com.chatapp.backend.websocket.delivery.DeliveryAckTracker;
+import com.chatapp.backend.websocket.fanout.ChannelFanoutService;
+import com.chatapp.backend.websocket.interceptor.BatchNegotiationInterceptor;
+import com.chatapp.backend.websocket.interceptor.RateLimitChannelInterceptor;
+import com.chatapp.backend.websocket.interceptor.RoomSubscriptionInterceptor;
+import com.chatapp.backend.websocket.interceptor.StompAuthChannelInterceptor;
+import com.chatapp.backend.websocket.interceptor.WireFormatChannelInterceptor;
+import com.chatapp.backend.websocket.metrics.WebSocketTrafficMetrics;
+import com.chatapp.backend.websocket.session.WebSocketSessionRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
 
 /**
  * Cấu hình WebSocket cho chat real-time
@@ -13,22 +38,120 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final RateLimitChannelInterceptor rateLimitChannelInterceptor;
+    private final RoomSubscriptionInterceptor roomSubscriptionInterceptor;
+    private final PresenceChannelInterceptor presenceChannelInterceptor;
+    private final WireFormatChannelInterceptor wireFormatChannelInterceptor;
+    private final WebSocketTrafficMetrics webSocketTrafficMetrics;
+    private final BatchNegotiationInterceptor batchNegotiationInterceptor;
+    private final BatchingDecoratorFactory batchingDecoratorFactory;
+    private final DeliveryAckTracker deliveryAckTracker;
+    private final ChannelFanoutService channelFanoutService;
+    private final WebSocketSessionRegistry webSocketSessionRegistry;
+
+    @Value("${chat.ws.heartbeat-ms:10000}")
+    private long heartbeatMillis;
+
+    @Value("${chat.payload.lean-mode:false}")
+    private boolean leanPayloads;
+
+    // @Lazy: interceptor phụ thuộc SimpMessagingTemplate do chính cấu hình này tạo ra
+    public WebSocketConfig(StompAuthChannelInterceptor stompAuthChannelInterceptor,
+                           RateLimitChannelInterceptor rateLimitChannelInterceptor,
+                           RoomSubscriptionInterceptor roomSubscriptionInterceptor,
+                           @Lazy PresenceChannelInterceptor presenceChannelInterceptor,
+                           WireFormatChannelInterceptor wireFormatChannelInterceptor,
+                           WebSocketTrafficMetrics webSocketTrafficMetrics,
+                           BatchNegotiationInterceptor batchNegotiationInterceptor,
+                           BatchingDecoratorFactory batchingDecoratorFactory,
+                           DeliveryAckTracker deliveryAckTracker,
+                           ChannelFanoutService channelFanoutService,
+                           WebSocketSessionRegistry webSocketSessionRegistry) {
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+        this.rateLimitChannelInterceptor = rateLimitChannelInterceptor;
+        this.roomSubscriptionInterceptor = roomSubscriptionInterceptor;
+        this.presenceChannelInterceptor = presenceChannelInterceptor;
+        this.wireFormatChannelInterceptor = wireFormatChannelInterceptor;
+        this.webSocketTrafficMetrics = webSocketTrafficMetrics;
+        this.batchNegotiationInterceptor = batchNegotiationInterceptor;
+        this.batchingDecoratorFactory = batchingDecoratorFactory;
+        this.deliveryAckTracker = deliveryAckTracker;
+        this.channelFanoutService = channelFanoutService;
+        this.webSocketSessionRegistry = webSocketSessionRegistry;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Endpoint để client kết nối WebSocket
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")  // CORS cho development
                 .withSockJS();  // Fallback cho browser không support WebSocket
+
+        // WebSocket thuần cho native client: chọn STOMP hoặc protocol tối giản "chat.min.v1"
+        // qua Sec-WebSocket-Protocol (permessage-deflate do container tự negotiate)
+        registry.addEndpoint("/ws/raw")
+                .setAllowedOriginPatterns("*");
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // Cấu hình message broker
         registry.setApplicationDestinationPrefixes("/app");  // Prefix cho @MessageMapping
-        registry.enableSimpleBroker("/topic", "/queue", "/user");  // Prefix cho @SendTo
+        registry.enableSimpleBroker("/topic", "/queue", "/user")  // Prefix cho @SendTo
+                .setHeartbeatValue(new long[]{heartbeatMillis, heartbeatMillis})  // Heartbeat 2 chiều cho presence
+                .setTaskScheduler(heartbeatScheduler());
         
         // Cấu hình user destination prefix
         registry.setUserDestinationPrefix("/user");
     }
-}
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Decorator thêm sau nằm ngoài cùng: metrics đếm frame thực sự ghi ra socket (sau khi batch)
+        registration.addDecoratorFactory(batchingDecoratorFactory);
+        registration.addDecoratorFactory(webSocketTrafficMetrics);
+        // Registry giữ session gốc (ngoài cùng) để presence sweep đóng được socket
+        registration.addDecoratorFactory(webSocketSessionRegistry);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Xác thực chạy đầu tiên: frame chưa xác thực bị từ chối trước mọi xử lý khác,
+        // kế đó là giới hạn tần suất SEND theo user và kiểm tra quyền SUBSCRIBE room.
+        // Channel fan-out chạy cuối: nó giữ lại SUBSCRIBE tới /topic/channel/** sau khi
+        // các interceptor khác (ack tracking) đã ghi nhận subscription
+        registration.interceptors(stompAuthChannelInterceptor, rateLimitChannelInterceptor, roomSubscriptionInterceptor,
+                presenceChannelInterceptor, wireFormatChannelInterceptor, batchNegotiationInterceptor, deliveryAckTracker,
+                channelFanoutService);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Encode lại frame MESSAGE cho các session đã chọn CBOR, sau đó mới giữ frame (đã encode) để gửi lại
+        registration.interceptors(wireFormatChannelInterceptor, deliveryAckTracker);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // CBOR cho @Payload khi client gửi content-type application/cbor; còn lại giống bộ mặc định,
+        // riêng converter JSON giữ object gốc để session CBOR encode thẳng từ object
+        CborMessageConverter cborConverter = new CborMessageConverter(
+                LeanPayloads.configure(Jackson2ObjectMapperBuilder.cbor(), leanPayloads).build());
+        messageConverters.add(cborConverter);
+        messageConverters.add(new StringMessageConverter());
+        messageConverters.add(new ByteArrayMessageConverter());
+        messageConverters.add(new WireFormatJsonMessageConverter(
+                LeanPayloads.configure(Jackson2ObjectMapperBuilder.json(), leanPayloads).build(),
+                cborConverter.getCborMapper()));
+        return false;
+    }
+
+    private ThreadPoolTaskScheduler heartbeatScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("ws-heartbeat-");
+        scheduler.initialize();
+        return scheduler;
+    }
+}
@@ -0,0 +1,238 @@
+package com.chatapp.backend.websocket.batching;
+
+import com.chatapp.backend.websocket.raw.RawChatProtocolHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Micro-batching outbound theo session.
+ *
+ * Session đã bật batching (xem BatchNegotiationInterceptor) gom các frame STOMP
+ * trong cửa sổ linger hoặc tới ngưỡng số frame/byte rồi gửi một lần trong một
+ * WebSocket message. Frame STOMP kết thúc bằng NUL nên client tách được nhiều
+ * frame trong cùng message.
+ *
+ * Protocol tối giản (chat.min.v1) không tự phân tách frame nên không được batch.
+ *
+ * Batch xả theo linger chạy trên scheduler riêng của factory (không dùng taskScheduler chung).
+ * Việc ghi ra socket không giữ lock của batch: batch đã đóng được xếp vào hàng đợi outbound
+ * và chỉ một thread ghi tại một thời điểm, thread khác thấy đang ghi thì trả về ngay. Giống
+ * ConcurrentWebSocketSessionDecorator, client chậm giữ lần ghi quá send-time-limit-ms hoặc để
+ * hàng đợi vượt send-buffer-limit thì session bị đóng.
+ */
+@Component
+@Slf4j
+public class BatchingDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+
+    private final ThreadPoolTaskScheduler flushScheduler;
+    private final DistributionSummary batchSize;
+    private final Timer batchDelay;
+    private final Counter lingerFlushes;
+    private final Counter sizeFlushes;
+    private final Counter slowSessionsClosed;
+
+    @Value("${chat.ws.batch.send-time-limit-ms:10000}")
+    private long sendTimeLimitMillis;
+
+    @Value("${chat.ws.batch.send-buffer-limit:524288}")
+    private int sendBufferLimit;
+
+    public BatchingDecoratorFactory(@Value("${chat.ws.batch.flush-threads:2}") int flushThreads,
+                                    MeterRegistry meterRegistry) {
+        this.flushScheduler = new ThreadPoolTaskScheduler();
+        this.flushScheduler.setPoolSize(flushThreads);
+        this.flushScheduler.setThreadNamePrefix("ws-batch-flush-");
+        this.flushScheduler.setRemoveOnCancelPolicy(true);
+        this.flushScheduler.initialize();
+        this.batchSize = DistributionSummary.builder("chat.ws.batch.size")
+                .description("Số frame trong mỗi batch")
+                .register(meterRegistry);
+        this.batchDelay = Timer.builder("chat.ws.batch.delay")
+                .description("Thời gian frame đầu tiên chờ trong batch")
+                .register(meterRegistry);
+        this.lingerFlushes = Counter.builder("chat.ws.batch.flushes").tag("reason", "linger").register(meterRegistry);
+        this.sizeFlushes = Counter.builder("chat.ws.batch.flushes").tag("reason", "size").register(meterRegistry);
+        this.slowSessionsClosed = Counter.builder("chat.ws.batch.slow-sessions.closed").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        flushScheduler.shutdown();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                if (RawChatProtocolHandler.PROTOCOL.equals(session.getAcceptedProtocol())) {
+                    super.afterConnectionEstablished(session);
+                    return;
+                }
+                super.afterConnectionEstablished(new BatchingSession(session));
+            }
+        };
+    }
+
+    private final class BatchingSession extends WebSocketSessionDecorator {
+
+        private final StringBuilder buffer = new StringBuilder();
+        private int frames;
+        private long firstEnqueuedAt;
+        private ScheduledFuture<?> pendingFlush;
+
+        // Message đã sẵn sàng ghi, đúng thứ tự; chỉ thread giữ sendLock ghi ra socket
+        private final Queue<WebSocketMessage<?>> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger outboundBytes = new AtomicInteger();
+        private final ReentrantLock sendLock = new ReentrantLock();
+        private volatile long sendStartedAt;
+
+        private BatchingSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            BatchingSettings settings = (BatchingSettings) getAttributes().get(BatchingSettings.SESSION_ATTRIBUTE);
+            synchronized (this) {
+                if (settings == null || !(message instanceof TextMessage textMessage)) {
+                    // Giữ thứ tự: xả batch đang chờ trước khi gửi trực tiếp
+                    flushLocked();
+                    enqueue(message);
+                } else {
+                    if (frames == 0) {
+                        firstEnqueuedAt = System.nanoTime();
+                        pendingFlush = flushScheduler.schedule(this::flushOnLinger,
+                                Instant.now().plusMillis(settings.lingerMillis()));
+                    }
+                    buffer.append(textMessage.getPayload());
+                    frames++;
+
+                    if (frames >= settings.maxFrames() || buffer.length() >= settings.maxBytes()) {
+                        sizeFlushes.increment();
+                        flushLocked();
+                    }
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void close(CloseStatus status) throws IOException {
+            synchronized (this) {
+                flushLocked();
+            }
+            // Frame ERROR/RECEIPT gửi ngay trước khi đóng vẫn phải tới client
+            try {
+                drain();
+            } catch (IOException e) {
+                log.debug("Failed to flush batch before closing session {}: {}", getId(), e.getMessage());
+            }
+            super.close(status);
+        }
+
+        private void flushOnLinger() {
+            synchronized (this) {
+                if (frames == 0) {
+                    return;
+                }
+                lingerFlushes.increment();
+                flushLocked();
+            }
+            try {
+                drain();
+            } catch (IOException e) {
+                log.warn("Failed to flush batch for session {}: {}", getId(), e.getMessage());
+            }
+        }
+
+        // Đóng batch hiện tại thành một message trong hàng đợi outbound, không ghi socket
+        private void flushLocked() {
+            if (frames == 0) {
+                return;
+            }
+            if (pendingFlush != null) {
+                pendingFlush.cancel(false);
+                pendingFlush = null;
+            }
+
+            TextMessage batch = new TextMessage(buffer.toString());
+            batchSize.record(frames);
+            batchDelay.record(System.nanoTime() - firstEnqueuedAt, TimeUnit.NANOSECONDS);
+            buffer.setLength(0);
+            frames = 0;
+            enqueue(batch);
+        }
+
+        private void enqueue(WebSocketMessage<?> message) {
+            outbound.add(message);
+            outboundBytes.addAndGet(message.getPayloadLength());
+        }
+
+        /**
+         * Ghi hàng đợi outbound ra socket. Thread khác đang ghi thì trả về ngay (thread đó
+         * sẽ ghi luôn message vừa xếp hàng) sau khi kiểm tra giới hạn thời gian và dung lượng.
+         */
+        private void drain() throws IOException {
+            while (!outbound.isEmpty()) {
+                if (!sendLock.tryLock()) {
+                    checkSendLimits();
+                    return;
+                }
+                try {
+                    sendStartedAt = System.nanoTime();
+                    WebSocketMessage<?> message;
+                    while ((message = outbound.poll()) != null) {
+                        outboundBytes.addAndGet(-message.getPayloadLength());
+                        if (isOpen()) {
+                            super.sendMessage(message);
+                        }
+                    }
+                } finally {
+                    sendStartedAt = 0;
+                    sendLock.unlock();
+                }
+            }
+        }
+
+        private void checkSendLimits() throws IOException {
+            long startedAt = sendStartedAt;
+            boolean timedOut = startedAt != 0
+                    && System.nanoTime() - startedAt > TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+            if (!timedOut && outboundBytes.get() <= sendBufferLimit) {
+                return;
+            }
+            slowSessionsClosed.increment();
+            log.warn("Closing slow session {}: {} bytes queued, send {}", getId(), outboundBytes.get(),
+                    timedOut ? "exceeded time limit" : "in progress");
+            outbound.clear();
+            outboundBytes.set(0);
+            super.close(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+}
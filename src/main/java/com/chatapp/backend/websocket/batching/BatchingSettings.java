@@ -0,0 +1,9 @@
+package com.chatapp.backend.websocket.batching;
+
+/**
+ * Tham số batching đã negotiate cho một session (lưu trong session attributes)
+ */
+public record BatchingSettings(long lingerMillis, int maxFrames, int maxBytes) {
+
+    public static final String SESSION_ATTRIBUTE = BatchingSettings.class.getName();
+}
@@ -1,8 +1,16 @@
 package com.chatapp.backend.websocket.controller;
 
+import com.chatapp.backend.auth.jwt.AuthenticatedUser;
 import com.chatapp.backend.chat.dto.CreateMessageRequest;
 import com.chatapp.backend.chat.service.MessageService;
+import com.chatapp.backend.chat.service.MessageSyncService;
+import com.chatapp.backend.chat.service.RoomService;
+import com.chatapp.backend.presence.service.PresenceService;
 import com.chatapp.backend.websocket.dto.ChatMessage;
+import com.chatapp.backend.websocket.delivery.DeliveryAckTracker;
+import com.chatapp.backend.websocket.fanout.ChannelFanoutService;
+import com.chatapp.backend.websocket.dto.SyncRequest;
+import com.chatapp.backend.websocket.service.TypingStateTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -12,6 +20,7 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -23,7 +32,12 @@ import java.util.UUID;
 public class ChatWebSocketController {
 
     private final MessageService messageService;
+    private final MessageSyncService messageSyncService;
+    private final RoomService roomService;
+    private final ChannelFanoutService channelFanoutService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final TypingStateTracker typingStateTracker;
+    private final PresenceService presenceService;
 
     /**
      * Xử lý tin nhắn chat
@@ -32,9 +46,10 @@ public class ChatWebSocketController {
      */
     @MessageMapping("/chat")
     public void handleChatMessage(@Payload ChatMessage chatMessage, 
-                                 SimpMessageHeaderAccessor headerAccessor) {
+                                 AuthenticatedUser principal) {
         
-        log.info("Received chat message: {}", chatMessage);
+        log.debug("Received chat message from {}", principal.userId());
+        UUID senderId = principal.userId();
         
         try {
             // Lưu tin nhắn vào database
@@ -45,13 +60,13 @@ public class ChatWebSocketController {
                     .messageType(chatMessage.getMessageType())
                     .build();
             
-            // Lấy sender ID từ WebSocket session
-            String senderIdStr = headerAccessor.getUser().getName();
-            UUID senderId = UUID.fromString(senderIdStr);
-            
             // Tạo tin nhắn trong database
             var messageResponse = messageService.createMessage(request, senderId);
             ChatMessage savedMessage = ChatMessage.fromMessageResponse(messageResponse);
+            typingStateTracker.onMessageSent(senderId, chatMessage.getReceiverId(), chatMessage.getRoomId());
+            
+            // chat-id: client ack và loại trùng khi được gửi lại
+            Map<String, Object> deliveryHeaders = Map.of(DeliveryAckTracker.CHAT_ID_HEADER, savedMessage.getId().toString());
             
             // Gửi tin nhắn đến người nhận
             if (chatMessage.getReceiverId() != null) {
@@ -59,20 +74,26 @@ public class ChatWebSocketController {
                 messagingTemplate.convertAndSendToUser(
                         chatMessage.getReceiverId().toString(),
                         "/queue/messages",
-                        savedMessage
+                        savedMessage,
+                        deliveryHeaders
                 );
                 
                 // Gửi lại cho người gửi (confirmation)
                 messagingTemplate.convertAndSendToUser(
                         senderId.toString(),
                         "/queue/messages",
-                        savedMessage
+                        savedMessage,
+                        deliveryHeaders
                 );
+            } else if (chatMessage.getRoomId() != null && roomService.isChannel(chatMessage.getRoomId())) {
+                // Channel - fan-out theo shard tới subscriber của /topic/channel/{roomId}
+                channelFanoutService.publish(chatMessage.getRoomId(), savedMessage, deliveryHeaders);
             } else if (chatMessage.getRoomId() != null) {
                 // Group chat - gửi đến tất cả trong room
                 messagingTemplate.convertAndSend(
                         "/topic/room/" + chatMessage.getRoomId(),
-                        savedMessage
+                        savedMessage,
+                        deliveryHeaders
                 );
             }
             
@@ -83,11 +104,11 @@ public class ChatWebSocketController {
             ChatMessage errorMessage = ChatMessage.builder()
                     .type(ChatMessage.MessageType.CHAT)
                     .content("Error: " + e.getMessage())
-                    .senderId(chatMessage.getSenderId())
+                    .senderId(senderId)
                     .build();
             
             messagingTemplate.convertAndSendToUser(
-                    chatMessage.getSenderId().toString(),
+                    senderId.toString(),
                     "/queue/errors",
                     errorMessage
             );
@@ -102,64 +123,46 @@ public class ChatWebSocketController {
     @MessageMapping("/join")
     @SendTo("/topic/public")
     public ChatMessage handleUserJoin(@Payload ChatMessage chatMessage, 
+                                    AuthenticatedUser principal,
                                     SimpMessageHeaderAccessor headerAccessor) {
         
-        log.info("User joined: {}", chatMessage.getSenderUsername());
+        log.info("User joined: {}", principal.username());
         
         // Thêm username vào WebSocket session
-        headerAccessor.getSessionAttributes().put("username", chatMessage.getSenderUsername());
-        headerAccessor.getSessionAttributes().put("userId", chatMessage.getSenderId());
+        headerAccessor.getSessionAttributes().put("username", principal.username());
+        headerAccessor.getSessionAttributes().put("userId", principal.userId());
+        presenceService.sessionConnected(headerAccessor.getSessionId(), principal.userId());
         
         return ChatMessage.builder()
                 .type(ChatMessage.MessageType.JOIN)
-                .senderId(chatMessage.getSenderId())
-                .senderUsername(chatMessage.getSenderUsername())
-                .content(chatMessage.getSenderUsername() + " joined the chat")
+                .senderId(principal.userId())
+                .senderUsername(principal.username())
+                .content(principal.username() + " joined the chat")
                 .build();
     }
 
     /**
      * User typing indicator
      * Client gửi: /app/typing
-     * Server gửi: /user/{receiverId}/queue/typing
+     * Server gửi: /user/{receiverId}/queue/typing (private, đã throttle)
+     *             hoặc digest định kỳ tới /topic/room/{roomId}
      */
     @MessageMapping("/typing")
-    public void handleTyping(@Payload ChatMessage chatMessage) {
-        
-        if (chatMessage.getReceiverId() != null) {
-            // Gửi typing indicator đến người nhận
-            messagingTemplate.convertAndSendToUser(
-                    chatMessage.getReceiverId().toString(),
-                    "/queue/typing",
-                    ChatMessage.builder()
-                            .type(ChatMessage.MessageType.TYPING)
-                            .senderId(chatMessage.getSenderId())
-                            .senderUsername(chatMessage.getSenderUsername())
-                            .build()
-            );
-        }
+    public void handleTyping(@Payload ChatMessage chatMessage, AuthenticatedUser principal) {
+        chatMessage.setSenderId(principal.userId());
+        chatMessage.setSenderUsername(principal.username());
+        typingStateTracker.onTyping(chatMessage);
     }
 
     /**
      * User stop typing indicator
      * Client gửi: /app/stop-typing
-     * Server gửi: /user/{receiverId}/queue/typing
+     * Server gửi: /user/{receiverId}/queue/typing hoặc digest tới /topic/room/{roomId}
      */
     @MessageMapping("/stop-typing")
-    public void handleStopTyping(@Payload ChatMessage chatMessage) {
-        
-        if (chatMessage.getReceiverId() != null) {
-            // Gửi stop typing indicator đến người nhận
-            messagingTemplate.convertAndSendToUser(
-                    chatMessage.getReceiverId().toString(),
-                    "/queue/typing",
-                    ChatMessage.builder()
-                            .type(ChatMessage.MessageType.STOP_TYPING)
-                            .senderId(chatMessage.getSenderId())
-                            .senderUsername(chatMessage.getSenderUsername())
-                            .build()
-            );
-        }
+    public void handleStopTyping(@Payload ChatMessage chatMessage, AuthenticatedUser principal) {
+        chatMessage.setSenderId(principal.userId());
+        typingStateTracker.onStopTyping(chatMessage);
     }
 
     /**
@@ -169,10 +172,9 @@ public class ChatWebSocketController {
      */
     @MessageMapping("/read")
     public void handleMessageRead(@Payload ChatMessage chatMessage, 
-                                SimpMessageHeaderAccessor headerAccessor) {
+                                AuthenticatedUser principal) {
         
-        String currentUserIdStr = headerAccessor.getUser().getName();
-        UUID currentUserId = UUID.fromString(currentUserIdStr);
+        UUID currentUserId = principal.userId();
         
         // Đánh dấu tin nhắn đã đọc
         messageService.markMessagesAsRead(currentUserId, chatMessage.getSenderId());
@@ -188,4 +190,26 @@ public class ChatWebSocketController {
                         .build()
             );
     }
+
+    /**
+     * Đồng bộ tin nhắn khi reconnect
+     * Client gửi: /app/sync {deviceId, cursor?}
+     * Server gửi: các SyncBatch tới /user/queue/messages của session này
+     */
+    @MessageMapping("/sync")
+    public void handleSync(@Payload SyncRequest syncRequest,
+                           AuthenticatedUser principal,
+                           SimpMessageHeaderAccessor headerAccessor) {
+        messageSyncService.sync(principal.userId(), headerAccessor.getSessionId(),
+                syncRequest.getDeviceId(), syncRequest.getCursor());
+    }
+
+    /**
+     * Thiết bị xác nhận đã xử lý tới cursor
+     * Client gửi: /app/sync/ack {deviceId, cursor}
+     */
+    @MessageMapping("/sync/ack")
+    public void handleSyncAck(@Payload SyncRequest syncRequest, AuthenticatedUser principal) {
+        messageSyncService.acknowledge(principal.userId(), syncRequest.getDeviceId(), syncRequest.getCursor());
+    }
 }
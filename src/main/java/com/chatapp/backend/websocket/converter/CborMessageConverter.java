@@ -0,0 +1,87 @@
+package com.chatapp.backend.websocket.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Message converter CBOR cho STOMP.
+ *
+ * Chỉ được dùng khi frame khai báo content-type CBOR (strict match), nên không
+ * ảnh hưởng tới các client JSON hiện tại.
+ *
+ * Lưu ý: StompSubProtocolHandler chỉ gửi binary WebSocket frame khi content-type
+ * tương thích application/octet-stream, nên frame outbound dùng
+ * "application/octet-stream;codec=cbor". Client gửi lên có thể dùng
+ * application/cbor hoặc dạng octet-stream ở trên.
+ */
+public class CborMessageConverter extends AbstractMessageConverter {
+
+    public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+    public static final MimeType CBOR_FRAME = new MimeType("application", "octet-stream", Map.of("codec", "cbor"));
+
+    private final ObjectMapper cborMapper;
+
+    public CborMessageConverter() {
+        this(Jackson2ObjectMapperBuilder.cbor().build());
+    }
+
+    public CborMessageConverter(ObjectMapper cborMapper) {
+        super(APPLICATION_CBOR);
+        this.cborMapper = cborMapper;
+        setStrictContentTypeMatch(true);
+    }
+
+    public ObjectMapper getCborMapper() {
+        return cborMapper;
+    }
+
+    public static boolean isCbor(@Nullable MimeType mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        return APPLICATION_CBOR.equalsTypeAndSubtype(mimeType)
+                || (CBOR_FRAME.equalsTypeAndSubtype(mimeType) && "cbor".equals(mimeType.getParameter("codec")));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz != byte[].class && clazz != String.class;
+    }
+
+    @Override
+    protected boolean supportsMimeType(@Nullable MessageHeaders headers) {
+        return isCbor(getMimeType(headers));
+    }
+
+    @Override
+    @Nullable
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, @Nullable Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            return null;
+        }
+        try {
+            return cborMapper.readValue(payload, targetClass);
+        } catch (IOException e) {
+            throw new MessageConversionException(message, "Could not read CBOR: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    @Nullable
+    protected Object convertToInternal(Object payload, @Nullable MessageHeaders headers, @Nullable Object conversionHint) {
+        try {
+            return cborMapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not write CBOR: " + e.getMessage(), e);
+        }
+    }
+}
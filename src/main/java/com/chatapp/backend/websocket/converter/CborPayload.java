@@ -0,0 +1,35 @@
+package com.chatapp.backend.websocket.converter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Object gốc của một frame MESSAGE, giữ trong header SOURCE_HEADER để session CBOR encode
+ * thẳng từ object thay vì parse lại JSON.
+ *
+ * Broker copy header sang bản gửi cho từng subscriber nên mọi bản dùng chung một holder:
+ * kết quả CBOR được tính một lần cho mỗi message, không phải một lần cho mỗi subscriber.
+ */
+public final class CborPayload {
+
+    public static final String SOURCE_HEADER = "chat.cborPayload";
+
+    private final Object source;
+    private final ObjectMapper cborMapper;
+    private volatile byte[] encoded;
+
+    CborPayload(Object source, ObjectMapper cborMapper) {
+        this.source = source;
+        this.cborMapper = cborMapper;
+    }
+
+    public byte[] encode() throws JsonProcessingException {
+        byte[] result = encoded;
+        if (result == null) {
+            // Hai thread cùng encode lần đầu chỉ tốn thêm một lần encode, kết quả như nhau
+            result = cborMapper.writeValueAsBytes(source);
+            encoded = result;
+        }
+        return result;
+    }
+}
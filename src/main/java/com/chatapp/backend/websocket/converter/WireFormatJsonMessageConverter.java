@@ -0,0 +1,72 @@
+package com.chatapp.backend.websocket.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.DefaultContentTypeResolver;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.SmartMessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Converter JSON mặc định của broker, thêm header CborPayload trỏ tới object gốc.
+ *
+ * Payload vẫn là JSON cho mọi session; WireFormatChannelInterceptor dùng header này để
+ * encode CBOR trực tiếp từ object cho các session đã chọn CBOR.
+ */
+public class WireFormatJsonMessageConverter implements SmartMessageConverter {
+
+    private final MappingJackson2MessageConverter delegate;
+    private final ObjectMapper cborMapper;
+
+    public WireFormatJsonMessageConverter(ObjectMapper cborMapper) {
+        this(Jackson2ObjectMapperBuilder.json().build(), cborMapper);
+    }
+
+    public WireFormatJsonMessageConverter(ObjectMapper jsonMapper, ObjectMapper cborMapper) {
+        // Cấu hình như converter JSON mặc định của Spring: content-type mặc định application/json
+        this.delegate = new MappingJackson2MessageConverter(jsonMapper);
+        DefaultContentTypeResolver resolver = new DefaultContentTypeResolver();
+        resolver.setDefaultMimeType(MimeTypeUtils.APPLICATION_JSON);
+        this.delegate.setContentTypeResolver(resolver);
+        this.cborMapper = cborMapper;
+    }
+
+    @Override
+    @Nullable
+    public Object fromMessage(Message<?> message, Class<?> targetClass) {
+        return delegate.fromMessage(message, targetClass);
+    }
+
+    @Override
+    @Nullable
+    public Object fromMessage(Message<?> message, Class<?> targetClass, @Nullable Object conversionHint) {
+        return delegate.fromMessage(message, targetClass, conversionHint);
+    }
+
+    @Override
+    @Nullable
+    public Message<?> toMessage(Object payload, @Nullable MessageHeaders headers) {
+        return withSource(delegate.toMessage(payload, headers), payload);
+    }
+
+    @Override
+    @Nullable
+    public Message<?> toMessage(Object payload, @Nullable MessageHeaders headers, @Nullable Object conversionHint) {
+        return withSource(delegate.toMessage(payload, headers, conversionHint), payload);
+    }
+
+    @Nullable
+    private Message<?> withSource(@Nullable Message<?> message, Object payload) {
+        if (message == null) {
+            return null;
+        }
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        accessor.setHeader(CborPayload.SOURCE_HEADER, new CborPayload(payload, cborMapper));
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+}
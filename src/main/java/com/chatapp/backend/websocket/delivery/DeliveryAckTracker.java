@@ -0,0 +1,199 @@
+package com.chatapp.backend.websocket.delivery;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giao nhận at-least-once cho frame chat.
+ *
+ * - Client subscribe với header "ack: client" hoặc "client-individual" để bật ack
+ *   cho subscription đó (chuẩn STOMP).
+ * - Frame MESSAGE có header "chat-id" tới subscription đó được giữ trong window
+ *   của session và gửi kèm header "ack" = chat-id.
+ * - Client gửi frame ACK với "id" = chat-id. Frame chưa ack sau timeout được gửi lại
+ *   kèm "redelivered: true"; client loại trùng theo chat-id.
+ */
+@Component
+@Slf4j
+public class DeliveryAckTracker implements ChannelInterceptor {
+
+    public static final String CHAT_ID_HEADER = "chat-id";
+    public static final String REDELIVERED_HEADER = "redelivered";
+
+    private final MessageChannel clientOutboundChannel;
+    private final Map<String, UnackedWindow> windows = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> ackSubscriptions = new ConcurrentHashMap<>();
+
+    private final Counter trackedCounter;
+    private final Counter retransmitCounter;
+    private final Counter evictedCounter;
+    private final Counter exhaustedCounter;
+    private final Timer ackLatency;
+
+    @Value("${chat.delivery.window-size:256}")
+    private int windowSize;
+
+    @Value("${chat.delivery.retransmit-timeout-ms:5000}")
+    private long retransmitTimeoutMillis;
+
+    @Value("${chat.delivery.max-attempts:4}")
+    private int maxAttempts;
+
+    // @Lazy: clientOutboundChannel được tạo sau khi interceptor này được đăng ký vào chính channel đó
+    public DeliveryAckTracker(@Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                              MeterRegistry meterRegistry) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.trackedCounter = Counter.builder("chat.delivery.tracked").register(meterRegistry);
+        this.retransmitCounter = Counter.builder("chat.delivery.retransmits").register(meterRegistry);
+        this.evictedCounter = Counter.builder("chat.delivery.dropped").tag("reason", "window").register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("chat.delivery.dropped").tag("reason", "attempts").register(meterRegistry);
+        this.ackLatency = Timer.builder("chat.delivery.ack.latency").register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        // Frame MESSAGE (outbound tới client, hoặc SEND inbound - không có subscription nên bỏ qua)
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+            return handleOutbound(message);
+        }
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor != null && accessor.getCommand() != null) {
+            handleInbound(accessor);
+        }
+        return message;
+    }
+
+    private void handleInbound(StompHeaderAccessor accessor) {
+        String sessionId = accessor.getSessionId();
+        if (sessionId == null) {
+            return;
+        }
+
+        switch (accessor.getCommand()) {
+            case SUBSCRIBE -> {
+                String ackMode = accessor.getAck();
+                if (ackMode != null && !"auto".equals(ackMode)) {
+                    ackSubscriptions.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet())
+                            .add(accessor.getSubscriptionId());
+                }
+            }
+            case UNSUBSCRIBE -> {
+                Set<String> subscriptions = ackSubscriptions.get(sessionId);
+                if (subscriptions != null) {
+                    subscriptions.remove(accessor.getSubscriptionId());
+                }
+            }
+            case ACK -> acknowledge(sessionId, accessor.getFirstNativeHeader("id"));
+            case DISCONNECT -> {
+                ackSubscriptions.remove(sessionId);
+                windows.remove(sessionId);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private Message<?> handleOutbound(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        Set<String> subscriptions = sessionId != null ? ackSubscriptions.get(sessionId) : null;
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        if (subscriptions == null || subscriptionId == null || !subscriptions.contains(subscriptionId)) {
+            return message;
+        }
+
+        StompHeaderAccessor stompAccessor = StompHeaderAccessor.wrap(message);
+        String chatId = stompAccessor.getFirstNativeHeader(CHAT_ID_HEADER);
+        if (chatId == null || stompAccessor.getFirstNativeHeader(REDELIVERED_HEADER) != null) {
+            return message;
+        }
+        stompAccessor.setAck(chatId);
+        Message<?> tracked = MessageBuilder.createMessage(message.getPayload(), stompAccessor.getMessageHeaders());
+
+        UnackedWindow window = windows.computeIfAbsent(sessionId, id -> new UnackedWindow(windowSize));
+        UnackedWindow.Entry evicted;
+        synchronized (window) {
+            evicted = window.add(chatId, tracked, System.nanoTime());
+        }
+        trackedCounter.increment();
+        if (evicted != null) {
+            evictedCounter.increment();
+        }
+        return tracked;
+    }
+
+    private void acknowledge(String sessionId, String chatId) {
+        UnackedWindow window = windows.get(sessionId);
+        if (window == null || chatId == null) {
+            return;
+        }
+        UnackedWindow.Entry entry;
+        synchronized (window) {
+            entry = window.ack(chatId);
+        }
+        if (entry != null) {
+            ackLatency.record(System.nanoTime() - entry.firstSentAtNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Gửi lại các frame quá hạn chưa được ack
+     */
+    @Scheduled(fixedDelayString = "${chat.delivery.retransmit-check-ms:1000}")
+    public void retransmitDue() {
+        long now = System.nanoTime();
+        long deadline = now - TimeUnit.MILLISECONDS.toNanos(retransmitTimeoutMillis);
+
+        windows.forEach((sessionId, window) -> {
+            List<Message<?>> resend = new ArrayList<>();
+            List<UnackedWindow.Entry> exhausted = new ArrayList<>();
+            synchronized (window) {
+                window.forEachDue(deadline, entry -> {
+                    if (entry.attempts >= maxAttempts) {
+                        exhausted.add(entry);
+                        return;
+                    }
+                    entry.attempts++;
+                    entry.sentAtNanos = now;
+                    resend.add(entry.message);
+                });
+                if (!exhausted.isEmpty()) {
+                    window.drop(exhausted);
+                }
+            }
+
+            exhaustedCounter.increment(exhausted.size());
+            for (Message<?> message : resend) {
+                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+                accessor.setNativeHeader(REDELIVERED_HEADER, "true");
+                try {
+                    clientOutboundChannel.send(MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders()));
+                    retransmitCounter.increment();
+                } catch (Exception e) {
+                    log.debug("Retransmit to session {} failed: {}", sessionId, e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package com.chatapp.backend.websocket.delivery;
+
+import org.springframework.messaging.Message;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Cửa sổ các frame chưa được ack của một session (ring buffer có giới hạn).
+ *
+ * Frame mới ghi vào tail. Ack đánh dấu entry theo id, head tự tiến qua các entry đã ack;
+ * entry đã ack nằm giữa ring (ack không theo thứ tự) được dồn lại khi ring đầy. Chỉ khi
+ * số frame chưa ack bằng capacity, frame chưa ack cũ nhất mới bị loại (client bù lại qua
+ * /app/sync). Không thread-safe, caller đồng bộ trên chính window.
+ */
+class UnackedWindow {
+
+    private final Entry[] ring;
+    private final Map<String, Entry> byId = new HashMap<>();
+    private int head;
+    private int size;
+    // Số entry chưa ack trong ring; size còn gồm cả slot đã ack chưa được dồn
+    private int unacked;
+
+    UnackedWindow(int capacity) {
+        this.ring = new Entry[capacity];
+    }
+
+    /**
+     * Thêm frame vào window, trả về entry bị loại nếu window đầy frame chưa ack (hoặc null).
+     * Id đã có trong window (frame được gửi lại qua đường thường, ví dụ sync) thì
+     * làm mới slot cũ thay vì chiếm slot mới, để ack của id đó luôn giải phóng được slot.
+     */
+    Entry add(String id, Message<?> message, long nowNanos) {
+        Entry existing = byId.get(id);
+        if (existing != null) {
+            existing.message = message;
+            existing.sentAtNanos = nowNanos;
+            return null;
+        }
+
+        Entry evicted = null;
+        if (size == ring.length && unacked < size) {
+            squeeze();
+        }
+        if (size == ring.length) {
+            // compact() giữ head luôn là entry chưa ack: đây là frame chưa ack cũ nhất
+            evicted = ring[head];
+            byId.remove(evicted.id);
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+            unacked--;
+        }
+
+        Entry entry = new Entry(id, message, nowNanos);
+        ring[(head + size) % ring.length] = entry;
+        size++;
+        unacked++;
+        byId.put(id, entry);
+        return evicted;
+    }
+
+    /**
+     * Ack frame theo id, trả về entry đã ack (hoặc null nếu không còn trong window)
+     */
+    Entry ack(String id) {
+        Entry entry = byId.remove(id);
+        if (entry == null) {
+            return null;
+        }
+        entry.acked = true;
+        unacked--;
+        compact();
+        return entry;
+    }
+
+    /**
+     * Duyệt các entry chưa ack đã gửi trước deadline
+     */
+    void forEachDue(long deadlineNanos, Consumer<Entry> action) {
+        for (int i = 0; i < size; i++) {
+            Entry entry = ring[(head + i) % ring.length];
+            if (!entry.acked && entry.sentAtNanos <= deadlineNanos) {
+                action.accept(entry);
+            }
+        }
+    }
+
+    /**
+     * Loại entry (hết số lần gửi lại)
+     */
+    void drop(List<Entry> entries) {
+        for (Entry entry : entries) {
+            if (!entry.acked) {
+                byId.remove(entry.id);
+                entry.acked = true;
+                unacked--;
+            }
+        }
+        compact();
+    }
+
+    /**
+     * Số frame chưa ack
+     */
+    int size() {
+        return unacked;
+    }
+
+    private void compact() {
+        while (size > 0 && ring[head].acked) {
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+        }
+    }
+
+    // Dồn các entry chưa ack về đầu ring theo đúng thứ tự gửi, bỏ slot đã ack ở giữa
+    private void squeeze() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % ring.length;
+            Entry entry = ring[index];
+            ring[index] = null;
+            if (!entry.acked) {
+                ring[(head + kept) % ring.length] = entry;
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    static final class Entry {
+        final String id;
+        Message<?> message;
+        final long firstSentAtNanos;
+        long sentAtNanos;
+        int attempts;
+        boolean acked;
+
+        private Entry(String id, Message<?> message, long nowNanos) {
+            this.id = id;
+            this.message = message;
+            this.firstSentAtNanos = nowNanos;
+            this.sentAtNanos = nowNanos;
+            this.attempts = 1;
+        }
+    }
+}
@@ -26,6 +26,8 @@ public class ChatMessage {
     private UUID receiverId;
     private String receiverUsername;
     private String receiverAvatar;
+    private Long senderProfileVersion;  // Lean mode: client so với cache profile
+    private Long receiverProfileVersion;
     private UUID roomId;
     private Message.MessageType messageType;
     private Boolean isRead;
@@ -42,6 +44,9 @@ public class ChatMessage {
         LEAVE,      // User leave chat
         TYPING,     // User đang typing
         STOP_TYPING, // User stop typing
+        TYPING_DIGEST, // Danh sách user đang typing trong room
+        SYNC_BATCH, // Batch tin nhắn bù khi reconnect
+        SYNC_REQUIRED, // Server đã bỏ frame của room (quá tải), client gọi /app/sync để lấy bù
         READ,       // Tin nhắn đã đọc
         DELIVERED   // Tin nhắn đã gửi
     }
@@ -54,9 +59,11 @@ public class ChatMessage {
                 .senderId(message.getSender().getId())
                 .senderUsername(message.getSender().getUsername())
                 .senderAvatar(message.getSender().getAvatar())
+                .senderProfileVersion(message.getSender().getProfileVersion())
                 .receiverId(message.getReceiver() != null ? message.getReceiver().getId() : null)
                 .receiverUsername(message.getReceiver() != null ? message.getReceiver().getUsername() : null)
                 .receiverAvatar(message.getReceiver() != null ? message.getReceiver().getAvatar() : null)
+                .receiverProfileVersion(message.getReceiver() != null ? message.getReceiver().getProfileVersion() : null)
                 .roomId(message.getRoomId())
                 .messageType(message.getMessageType())
                 .isRead(message.getIsRead())
@@ -74,9 +81,11 @@ public class ChatMessage {
                 .senderId(messageResponse.getSenderId())
                 .senderUsername(messageResponse.getSenderUsername())
                 .senderAvatar(messageResponse.getSenderAvatar())
+                .senderProfileVersion(messageResponse.getSenderProfileVersion())
                 .receiverId(messageResponse.getReceiverId())
                 .receiverUsername(messageResponse.getReceiverUsername())
                 .receiverAvatar(messageResponse.getReceiverAvatar())
+                .receiverProfileVersion(messageResponse.getReceiverProfileVersion())
                 .roomId(messageResponse.getRoomId())
                 .messageType(messageResponse.getMessageType())
                 .isRead(messageResponse.getIsRead())
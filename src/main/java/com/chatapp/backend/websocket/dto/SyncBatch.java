@@ -0,0 +1,26 @@
+package com.chatapp.backend.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Một batch tin nhắn bù cho thiết bị, gửi tới /user/queue/messages.
+ * hasMore = true: client gửi lại /app/sync với cursor mới để lấy tiếp.
+ * Batch đầu có thể chứa lại tin nhắn ngay trước cursor (khoảng an toàn), client bỏ trùng theo id.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncBatch {
+
+    @Builder.Default
+    private ChatMessage.MessageType type = ChatMessage.MessageType.SYNC_BATCH;
+    private List<ChatMessage> messages;
+    private SyncCursor cursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,21 @@
+package com.chatapp.backend.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Vị trí đồng bộ: (createdAt, messageId) của tin nhắn cuối cùng thiết bị đã nhận
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncCursor {
+    private LocalDateTime createdAt;
+    private UUID messageId;
+}
@@ -0,0 +1,19 @@
+package com.chatapp.backend.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Client gửi tới /app/sync khi reconnect (cursor = null → dùng cursor đã lưu của thiết bị),
+ * và tới /app/sync/ack sau khi xử lý xong một batch
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncRequest {
+    private String deviceId;
+    private SyncCursor cursor;
+}
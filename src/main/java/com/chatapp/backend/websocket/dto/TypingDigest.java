@@ -0,0 +1,34 @@
+package com.chatapp.backend.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Digest "ai đang typing" gửi định kỳ tới /topic/room/{roomId}
+ * thay cho từng frame TYPING/STOP_TYPING riêng lẻ
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypingDigest {
+
+    @Builder.Default
+    private ChatMessage.MessageType type = ChatMessage.MessageType.TYPING_DIGEST;
+    private UUID roomId;
+    private List<Typer> typers;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Typer {
+        private UUID userId;
+        private String username;
+    }
+}
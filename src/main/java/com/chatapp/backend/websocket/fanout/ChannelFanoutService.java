@@ -0,0 +1,384 @@
+package com.chatapp.backend.websocket.fanout;
+
+import com.chatapp.backend.auth.jwt.AuthenticatedUser;
+import com.chatapp.backend.chat.service.RoomMembershipIndex;
+import com.chatapp.backend.websocket.converter.CborPayload;
+import com.chatapp.backend.websocket.dto.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out cho phòng CHANNEL (một admin đăng, rất nhiều người nhận).
+ *
+ * Subscription tới /topic/channel/{roomId} không đi vào simple broker mà được giữ ở đây,
+ * chia thành N shard theo session. Mỗi shard có một worker thread riêng và tự ghi frame
+ * tới session của mình: frame đi qua cùng chuỗi interceptor của clientOutboundChannel
+ * (wire format, ack window) nhưng chạy ngay trên thread shard, không xếp vào pool outbound
+ * dùng chung. Một bài đăng vào channel rất đông chỉ chiếm các thread shard, không làm
+ * nghẽn việc gửi của các room khác. Payload chỉ serialize một lần cho mọi subscriber.
+ *
+ * Thứ tự: mọi subscription của cùng một session nằm trên cùng shard, nên các bài đăng
+ * channel tới một session được giao theo thứ tự publish. Không có thứ tự giữa bài đăng
+ * channel và frame đi qua broker (room, queue cá nhân) của cùng session.
+ *
+ * Backpressure: hàng đợi shard đầy thì người đăng chờ tối đa fanout-offer-timeout-ms.
+ * Quá thời gian đó bài đăng không được xếp trên shard này (chat.channel.fanout.dropped);
+ * thay vào đó shard đánh dấu room và ngay sau bài đang gửi sẽ gửi cho mọi subscriber của
+ * room trên shard một frame SYNC_REQUIRED. Client nhận frame này gọi /app/sync để lấy bù
+ * (bài đăng đã lưu database), bỏ trùng theo id. Không frame nào mất mà client không biết.
+ */
+@Component
+@Slf4j
+public class ChannelFanoutService implements ChannelInterceptor {
+
+    public static final String DESTINATION_PREFIX = "/topic/channel/";
+
+    private final AbstractSubscribableChannel clientOutboundChannel;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomMembershipIndex membershipIndex;
+    private final MeterRegistry meterRegistry;
+
+    // sessionId -> (subscriptionId -> roomId), dùng cho UNSUBSCRIBE/DISCONNECT
+    private final Map<String, Map<String, UUID>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    private Shard[] shards;
+    // Cùng interceptor và handler (SubProtocolWebSocketHandler) với clientOutboundChannel,
+    // không có executor: send() chạy trên thread gọi (thread shard)
+    private volatile ExecutorSubscribableChannel directChannel;
+    private Counter deliveredCounter;
+    private Counter failedCounter;
+    private Counter droppedCounter;
+    private Counter resyncCounter;
+    private Timer publishTimer;
+
+    @Value("${chat.channel.fanout-shards:0}")
+    private int shardCount;
+
+    @Value("${chat.channel.fanout-queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Value("${chat.channel.fanout-offer-timeout-ms:50}")
+    private long offerTimeoutMillis;
+
+    // @Lazy: clientOutboundChannel và SimpMessagingTemplate được tạo bởi cấu hình WebSocket đăng ký interceptor này
+    public ChannelFanoutService(@Lazy @Qualifier("clientOutboundChannel") AbstractSubscribableChannel clientOutboundChannel,
+                                @Lazy SimpMessagingTemplate messagingTemplate,
+                                RoomMembershipIndex membershipIndex,
+                                MeterRegistry meterRegistry) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.messagingTemplate = messagingTemplate;
+        this.membershipIndex = membershipIndex;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        deliveredCounter = Counter.builder("chat.channel.fanout.delivered").register(meterRegistry);
+        failedCounter = Counter.builder("chat.channel.fanout.failed").register(meterRegistry);
+        droppedCounter = Counter.builder("chat.channel.fanout.dropped")
+                .description("Số lượt bài đăng không xếp được trên một shard vì hàng đợi đầy")
+                .register(meterRegistry);
+        resyncCounter = Counter.builder("chat.channel.fanout.resync")
+                .description("Số frame SYNC_REQUIRED gửi tới subscriber sau khi bài đăng bị bỏ")
+                .register(meterRegistry);
+
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            Shard shard = new Shard(i, queueCapacity);
+            shard.executor.setRejectedExecutionHandler((task, executor) -> rejected(shard, task));
+            shards[i] = shard;
+        }
+
+        publishTimer = Timer.builder("chat.channel.fanout.duration")
+                .description("Thời gian một shard gửi xong một bài đăng")
+                .register(meterRegistry);
+        Gauge.builder("chat.channel.subscriptions", sessionSubscriptions,
+                        map -> map.values().stream().mapToInt(Map::size).sum())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+    }
+
+    /**
+     * Gửi bài đăng tới mọi subscriber của channel
+     */
+    public void publish(UUID roomId, Object payload, Map<String, Object> headers) {
+        Message<?> converted = messagingTemplate.getMessageConverter().toMessage(payload, null);
+        if (converted == null) {
+            throw new MessageDeliveryException("Không thể serialize bài đăng channel " + roomId);
+        }
+        Object body = converted.getPayload();
+        Object contentType = converted.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        // Object gốc cho session CBOR: dùng chung cho mọi subscriber nên chỉ encode một lần
+        Object cborPayload = converted.getHeaders().get(CborPayload.SOURCE_HEADER);
+        String destination = DESTINATION_PREFIX + roomId;
+
+        for (Shard shard : shards) {
+            if (!shard.subscribers.containsKey(roomId)) {
+                continue;
+            }
+            shard.executor.execute(new Post(roomId, () -> {
+                // Đọc danh sách lúc shard xử lý: subscriber vừa rời không nhận, không cần copy
+                Set<Subscriber> subscribers = shard.subscribers.get(roomId);
+                if (subscribers != null) {
+                    long start = System.nanoTime();
+                    for (Subscriber subscriber : subscribers) {
+                        deliver(subscriber, destination, body, contentType, cborPayload, headers);
+                    }
+                    publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                sendResyncs(shard);
+            }));
+        }
+    }
+
+    /**
+     * Gửi SYNC_REQUIRED cho subscriber của các room có bài đăng bị bỏ trên shard.
+     * Chạy trên thread shard sau mỗi bài đăng; hàng đợi đầy nghĩa là còn bài đăng phía sau
+     * nên cờ luôn được xử lý.
+     */
+    private void sendResyncs(Shard shard) {
+        if (shard.resyncRooms.isEmpty()) {
+            return;
+        }
+        for (UUID roomId : shard.resyncRooms) {
+            shard.resyncRooms.remove(roomId);
+            Set<Subscriber> subscribers = shard.subscribers.get(roomId);
+            if (subscribers == null) {
+                continue;
+            }
+            ChatMessage signal = ChatMessage.builder()
+                    .type(ChatMessage.MessageType.SYNC_REQUIRED)
+                    .roomId(roomId)
+                    .build();
+            Message<?> converted = messagingTemplate.getMessageConverter().toMessage(signal, null);
+            if (converted == null) {
+                continue;
+            }
+            Object contentType = converted.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+            Object cborPayload = converted.getHeaders().get(CborPayload.SOURCE_HEADER);
+            for (Subscriber subscriber : subscribers) {
+                deliver(subscriber, DESTINATION_PREFIX + roomId, converted.getPayload(), contentType, cborPayload, null);
+                resyncCounter.increment();
+            }
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null || accessor.getSessionId() == null) {
+            return message;
+        }
+
+        switch (accessor.getCommand()) {
+            case SUBSCRIBE -> {
+                String destination = accessor.getDestination();
+                if (destination != null && destination.startsWith(DESTINATION_PREFIX)) {
+                    subscribe(accessor, destination);
+                    // Không chuyển tiếp tới simple broker: subscription được quản lý bởi các shard
+                    return null;
+                }
+            }
+            case UNSUBSCRIBE -> unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+            case DISCONNECT -> {
+                Map<String, UUID> subscriptions = sessionSubscriptions.remove(accessor.getSessionId());
+                if (subscriptions != null) {
+                    Shard shard = shardFor(accessor.getSessionId());
+                    subscriptions.forEach((subscriptionId, roomId) ->
+                            shard.remove(roomId, new Subscriber(accessor.getSessionId(), subscriptionId)));
+                }
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private void subscribe(StompHeaderAccessor accessor, String destination) {
+        UUID roomId;
+        try {
+            roomId = UUID.fromString(destination.substring(DESTINATION_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new MessageDeliveryException("Channel không hợp lệ: " + destination);
+        }
+
+        if (!(accessor.getUser() instanceof AuthenticatedUser user)
+                || !membershipIndex.isMember(roomId, user.userId())) {
+            throw new MessageDeliveryException("Bạn chưa tham gia channel này");
+        }
+
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        sessionSubscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, roomId);
+        shardFor(sessionId).add(roomId, new Subscriber(sessionId, subscriptionId));
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, UUID> subscriptions = sessionSubscriptions.get(sessionId);
+        if (subscriptions == null || subscriptionId == null) {
+            return;
+        }
+        UUID roomId = subscriptions.remove(subscriptionId);
+        if (roomId != null) {
+            shardFor(sessionId).remove(roomId, new Subscriber(sessionId, subscriptionId));
+        }
+    }
+
+    private void deliver(Subscriber subscriber, String destination, Object body, Object contentType,
+                         Object cborPayload, Map<String, Object> headers) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(subscriber.sessionId());
+        accessor.setSubscriptionId(subscriber.subscriptionId());
+        accessor.setDestination(destination);
+        if (contentType != null) {
+            accessor.setHeader(MessageHeaders.CONTENT_TYPE, contentType);
+        }
+        if (cborPayload != null) {
+            accessor.setHeader(CborPayload.SOURCE_HEADER, cborPayload);
+        }
+        if (headers != null) {
+            headers.forEach((name, value) -> accessor.setNativeHeader(name, String.valueOf(value)));
+        }
+        accessor.setLeaveMutable(true);
+
+        try {
+            directChannel().send(MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+            deliveredCounter.increment();
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.debug("Channel delivery to session {} failed: {}", subscriber.sessionId(), e.getMessage());
+        }
+    }
+
+    private ExecutorSubscribableChannel directChannel() {
+        ExecutorSubscribableChannel channel = directChannel;
+        if (channel == null) {
+            synchronized (this) {
+                channel = directChannel;
+                if (channel == null) {
+                    channel = new ExecutorSubscribableChannel();
+                    channel.setInterceptors(clientOutboundChannel.getInterceptors());
+                    for (MessageHandler handler : clientOutboundChannel.getSubscribers()) {
+                        channel.subscribe(handler);
+                    }
+                    directChannel = channel;
+                }
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * Hàng đợi shard đầy: chờ thêm một khoảng ngắn, vẫn đầy thì không xếp bài đăng
+     * và đánh dấu room để shard gửi SYNC_REQUIRED
+     */
+    private void rejected(Shard shard, Runnable task) {
+        ThreadPoolExecutor executor = shard.executor;
+        if (executor.isShutdown()) {
+            return;
+        }
+        try {
+            if (executor.getQueue().offer(task, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        droppedCounter.increment();
+        if (task instanceof Post post) {
+            shard.resyncRooms.add(post.roomId());
+        }
+        log.info("Channel fan-out queue full ({} queued), subscribers on the shard will be asked to resync",
+                executor.getQueue().size());
+    }
+
+    private Shard shardFor(String sessionId) {
+        return shards[Math.floorMod(sessionId.hashCode(), shards.length)];
+    }
+
+    private record Subscriber(String sessionId, String subscriptionId) {
+    }
+
+    // Bài đăng trên hàng đợi shard, giữ roomId để đánh dấu resync khi bị từ chối
+    private record Post(UUID roomId, Runnable delivery) implements Runnable {
+        @Override
+        public void run() {
+            delivery.run();
+        }
+    }
+
+    private static final class Shard {
+
+        private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+        // Room có bài đăng không xếp được trên shard, chờ gửi SYNC_REQUIRED
+        private final Set<UUID> resyncRooms = ConcurrentHashMap.newKeySet();
+        private final ThreadPoolExecutor executor;
+
+        private Shard(int index, int queueCapacity) {
+            AtomicInteger threads = new AtomicInteger();
+            // Một thread mỗi shard; hàng đợi đầy thì chờ có giới hạn rồi đánh dấu resync (xem rejected)
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "channel-fanout-" + index + "-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        // compute: thêm/xóa nguyên tử với việc bỏ set rỗng khỏi map
+        private void add(UUID roomId, Subscriber subscriber) {
+            subscribers.compute(roomId, (id, set) -> {
+                Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+                target.add(subscriber);
+                return target;
+            });
+        }
+
+        private void remove(UUID roomId, Subscriber subscriber) {
+            subscribers.computeIfPresent(roomId, (id, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.chatapp.backend.websocket.interceptor;
+
+import com.chatapp.backend.websocket.batching.BatchingSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Bật micro-batching outbound cho session khi client gửi header "batch-linger-ms"
+ * trong frame CONNECT. Linger bị giới hạn bởi chat.ws.batch.max-linger-ms.
+ */
+@Component
+@Slf4j
+public class BatchNegotiationInterceptor implements ChannelInterceptor {
+
+    public static final String BATCH_LINGER_HEADER = "batch-linger-ms";
+
+    @Value("${chat.ws.batch.max-linger-ms:20}")
+    private long maxLingerMillis;
+
+    @Value("${chat.ws.batch.max-frames:32}")
+    private int maxFrames;
+
+    @Value("${chat.ws.batch.max-bytes:65536}")
+    private int maxBytes;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+
+        String requested = accessor.getFirstNativeHeader(BATCH_LINGER_HEADER);
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (requested == null || attributes == null) {
+            return message;
+        }
+
+        try {
+            long linger = Math.min(Long.parseLong(requested.trim()), maxLingerMillis);
+            if (linger > 0) {
+                attributes.put(BatchingSettings.SESSION_ATTRIBUTE, new BatchingSettings(linger, maxFrames, maxBytes));
+                log.debug("Session {} enabled outbound batching (linger {} ms)", accessor.getSessionId(), linger);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalid {} header from session {}: {}", BATCH_LINGER_HEADER, accessor.getSessionId(), requested);
+        }
+        return message;
+    }
+}
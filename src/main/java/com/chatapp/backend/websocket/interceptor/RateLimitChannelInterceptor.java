@@ -0,0 +1,83 @@
+package com.chatapp.backend.websocket.interceptor;
+
+import com.chatapp.backend.common.ratelimit.RateLimit;
+import com.chatapp.backend.common.ratelimit.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tần suất SEND theo user cho từng destination cấu hình trong
+ * chat.ratelimit.stomp.destinations ("destination=capacity:refillPerMinute").
+ * Vượt giới hạn thì frame bị từ chối và client nhận frame ERROR (STOMP đóng kết nối sau
+ * ERROR). Riêng các destination trong chat.ratelimit.stomp.drop-destinations (typing, read...)
+ * frame vượt giới hạn bị bỏ im lặng: mất vài sự kiện loại này không đáng để ngắt kết nối.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitChannelInterceptor implements ChannelInterceptor {
+
+    private final RateLimiter rateLimiter;
+
+    @Value("${chat.ratelimit.stomp.destinations:/app/chat=30:120}")
+    private List<String> destinationSpecs;
+
+    @Value("${chat.ratelimit.stomp.drop-destinations:/app/typing,/app/stop-typing,/app/read}")
+    private Set<String> dropDestinations;
+
+    private final Map<String, RateLimit> limits = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        for (String spec : destinationSpecs) {
+            int separator = spec.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Cấu hình rate limit STOMP không hợp lệ: " + spec);
+            }
+            String destination = spec.substring(0, separator).trim();
+            limits.put(destination, RateLimit.parse("stomp" + destination, spec.substring(separator + 1)));
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SEND) {
+            return message;
+        }
+
+        RateLimit limit = limits.get(accessor.getDestination());
+        Principal user = accessor.getUser();
+        if (limit == null || user == null) {
+            return message;
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(limit, user.getName());
+        if (waitNanos > 0) {
+            log.debug("Rate limited SEND to {} from session {}", accessor.getDestination(), accessor.getSessionId());
+            if (dropDestinations.contains(accessor.getDestination())) {
+                return null;
+            }
+            throw new MessageDeliveryException(message,
+                    "Gửi quá nhanh, thử lại sau " + Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos)) + " giây");
+        }
+        return message;
+    }
+}
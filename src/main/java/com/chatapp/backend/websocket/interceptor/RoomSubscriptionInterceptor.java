@@ -0,0 +1,57 @@
+package com.chatapp.backend.websocket.interceptor;
+
+import com.chatapp.backend.auth.jwt.AuthenticatedUser;
+import com.chatapp.backend.chat.service.RoomMembershipIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Chỉ cho phép thành viên của phòng SUBSCRIBE /topic/room/{roomId}.
+ * Membership tra trong RoomMembershipIndex nên không tốn truy vấn database mỗi frame.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoomSubscriptionInterceptor implements ChannelInterceptor {
+
+    public static final String ROOM_TOPIC_PREFIX = "/topic/room/";
+
+    private final RoomMembershipIndex membershipIndex;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX)) {
+            return message;
+        }
+
+        UUID roomId;
+        try {
+            roomId = UUID.fromString(destination.substring(ROOM_TOPIC_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new MessageDeliveryException("Phòng không hợp lệ: " + destination);
+        }
+
+        if (!(accessor.getUser() instanceof AuthenticatedUser user)
+                || !membershipIndex.isMember(roomId, user.userId())) {
+            log.debug("Rejected SUBSCRIBE to {} from session {}", destination, accessor.getSessionId());
+            throw new MessageDeliveryException("Bạn không phải thành viên của phòng này");
+        }
+        return message;
+    }
+}
@@ -0,0 +1,99 @@
+package com.chatapp.backend.websocket.interceptor;
+
+import com.chatapp.backend.auth.jwt.AuthenticatedUser;
+import com.chatapp.backend.auth.jwt.JwtService;
+import com.chatapp.backend.auth.security.RevokedFamilyRegistry;
+import com.chatapp.backend.auth.service.TokenRevocationService;
+import com.chatapp.backend.common.constants.AppConstants;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Xác thực STOMP một lần cho mỗi connection.
+ *
+ * - CONNECT: verify JWT trong native header "Authorization: Bearer ..." và gắn
+ *   AuthenticatedUser (userId, role, hạn token) làm principal của session.
+ * - Các frame sau: chỉ kiểm tra principal đã có và còn hạn, không parse lại token.
+ *   Khi token hết hạn, client gửi token mới trong header Authorization của frame
+ *   bất kỳ để xác thực lại; nếu không frame bị từ chối.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RevokedFamilyRegistry revokedFamilies;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            // Heartbeat
+            return message;
+        }
+
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.CONNECT || command == StompCommand.STOMP) {
+            accessor.setUser(authenticate(accessor));
+            return message;
+        }
+        if (command == StompCommand.DISCONNECT) {
+            return message;
+        }
+
+        Principal user = accessor.getUser();
+        if (!(user instanceof AuthenticatedUser authenticatedUser)) {
+            throw new MessageDeliveryException(message, "Chưa xác thực");
+        }
+        if (authenticatedUser.isExpired(Instant.now())) {
+            // Chỉ xác thực lại khi token đã hết hạn
+            accessor.setUser(authenticate(accessor));
+        }
+        return message;
+    }
+
+    private AuthenticatedUser authenticate(StompHeaderAccessor accessor) {
+        String header = accessor.getFirstNativeHeader(AppConstants.AUTHORIZATION_HEADER);
+        if (header == null || !header.startsWith(AppConstants.BEARER_PREFIX)) {
+            throw new MessageDeliveryException("Thiếu token xác thực");
+        }
+
+        Claims claims;
+        try {
+            claims = jwtService.extractAllClaims(header.substring(AppConstants.BEARER_PREFIX.length()));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Rejected STOMP {} from session {}: {}", accessor.getCommand(), accessor.getSessionId(), e.getMessage());
+            throw new MessageDeliveryException("Token không hợp lệ hoặc đã hết hạn");
+        }
+
+        if (jwtService.isRefreshToken(claims)) {
+            throw new MessageDeliveryException("Không dùng refresh token để xác thực");
+        }
+
+        AuthenticatedUser principal = jwtService.toAuthenticatedUser(claims);
+        if (principal == null) {
+            // Token cũ không có claim uid/role không mang được iat/họ token để kiểm tra thu hồi
+            throw new MessageDeliveryException("Token phiên bản cũ, vui lòng đăng nhập lại");
+        }
+        if (tokenRevocationService.isRevoked(principal.userId(), claims.getIssuedAt())
+                || revokedFamilies.isRevoked(jwtService.familyId(claims))) {
+            throw new MessageDeliveryException("Token đã bị thu hồi");
+        }
+        return principal;
+    }
+}
@@ -0,0 +1,103 @@
+package com.chatapp.backend.websocket.interceptor;
+
+import com.chatapp.backend.websocket.converter.CborMessageConverter;
+import com.chatapp.backend.websocket.converter.CborPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chọn wire format theo từng connection.
+ *
+ * - Inbound: client gửi header "content-type: application/cbor" trong frame CONNECT
+ *   để chọn CBOR cho toàn bộ session.
+ * - Outbound: frame MESSAGE tới session CBOR được encode CBOR thẳng từ object gốc mà
+ *   WireFormatJsonMessageConverter gắn vào header (CborPayload), gửi dưới dạng binary frame.
+ *   Broadcast tới nhiều subscriber dùng chung holder nên mỗi message chỉ encode một lần.
+ *   Frame không có object gốc (payload dựng sẵn dạng byte) được gửi nguyên JSON.
+ *
+ * Binary frame chỉ có trên transport WebSocket thuần (/ws/websocket), SockJS luôn là text.
+ */
+@Component
+@Slf4j
+public class WireFormatChannelInterceptor implements ChannelInterceptor {
+
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (messageType == null || sessionId == null) {
+            return message;
+        }
+
+        switch (messageType) {
+            case CONNECT -> registerSession(message, sessionId);
+            case DISCONNECT -> cborSessions.remove(sessionId);
+            case MESSAGE -> {
+                if (cborSessions.contains(sessionId)) {
+                    return toCbor(message);
+                }
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    public boolean isCborSession(String sessionId) {
+        return sessionId != null && cborSessions.contains(sessionId);
+    }
+
+    private void registerSession(Message<?> message, String sessionId) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return;
+        }
+        String contentType = accessor.getFirstNativeHeader("content-type");
+        if (contentType != null && CborMessageConverter.isCbor(MimeTypeUtils.parseMimeType(contentType))) {
+            cborSessions.add(sessionId);
+            log.debug("Session {} negotiated CBOR wire format", sessionId);
+        }
+    }
+
+    private Message<?> toCbor(Message<?> message) {
+        if (!(message.getHeaders().get(CborPayload.SOURCE_HEADER) instanceof CborPayload source)) {
+            return message;
+        }
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        MimeType mimeType = contentType instanceof MimeType mt ? mt
+                : contentType != null ? MimeTypeUtils.parseMimeType(contentType.toString()) : null;
+        if (mimeType != null && !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(mimeType)) {
+            return message;
+        }
+
+        byte[] cbor;
+        try {
+            cbor = source.encode();
+        } catch (IOException e) {
+            log.warn("Failed to encode frame as CBOR, sending JSON: {}", e.getMessage());
+            return message;
+        }
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        accessor.setContentType(CborMessageConverter.CBOR_FRAME);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+}
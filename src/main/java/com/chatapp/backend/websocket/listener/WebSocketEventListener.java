@@ -1,15 +1,19 @@
 package com.chatapp.backend.websocket.listener;
 
-import com.chatapp.backend.websocket.dto.ChatMessage;
+import com.chatapp.backend.auth.jwt.AuthenticatedUser;
+import com.chatapp.backend.presence.service.PresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+import java.security.Principal;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * WebSocket Event Listener để xử lý connect/disconnect events
  */
@@ -18,7 +22,7 @@ import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 @Slf4j
 public class WebSocketEventListener {
 
-    private final SimpMessageSendingOperations messagingTemplate;
+    private final PresenceService presenceService;
 
     /**
      * Xử lý khi user connect WebSocket
@@ -31,32 +35,39 @@ public class WebSocketEventListener {
         String sessionId = headerAccessor.getSessionId();
         
         log.info("User connected with session ID: {}", sessionId);
+        
+        UUID userId = resolveUserId(event.getUser());
+        presenceService.sessionConnected(sessionId, userId);
     }
 
     /**
      * Xử lý khi user disconnect WebSocket
+     * Trạng thái offline chỉ được gửi tới các user liên quan qua PresenceService
      */
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-        
-        String username = (String) headerAccessor.getSessionAttributes().get("username");
-        String userId = (String) headerAccessor.getSessionAttributes().get("userId");
         String sessionId = headerAccessor.getSessionId();
+        Map<String, Object> attributes = headerAccessor.getSessionAttributes();
         
-        if (username != null) {
-            log.info("User disconnected: {} (Session: {})", username, sessionId);
-            
-            // Gửi thông báo user leave
-            ChatMessage chatMessage = ChatMessage.builder()
-                    .type(ChatMessage.MessageType.LEAVE)
-                    .senderId(userId != null ? java.util.UUID.fromString(userId) : null)
-                    .senderUsername(username)
-                    .content(username + " left the chat")
-                    .build();
-            
-            messagingTemplate.convertAndSend("/topic/public", chatMessage);
+        if (attributes != null && attributes.get("username") != null) {
+            log.info("User disconnected: {} (Session: {})", attributes.get("username"), sessionId);
         }
+        
+        presenceService.sessionDisconnected(sessionId);
     }
-}
 
+    private UUID resolveUserId(Principal principal) {
+        if (principal == null) {
+            return null;
+        }
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.userId();
+        }
+        try {
+            return UUID.fromString(principal.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
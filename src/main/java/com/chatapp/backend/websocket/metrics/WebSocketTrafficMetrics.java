@@ -0,0 +1,109 @@
+package com.chatapp.backend.websocket.metrics;
+
+import com.chatapp.backend.websocket.raw.RawChatProtocolHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đếm frame/byte vào-ra và số session theo transport ("stomp" hoặc "raw")
+ * để so sánh băng thông giữa /ws và /ws/raw.
+ *
+ * Metric: chat.ws.frames, chat.ws.bytes (tag transport, direction), chat.ws.sessions (tag transport)
+ */
+@Component
+public class WebSocketTrafficMetrics implements WebSocketHandlerDecoratorFactory {
+
+    private final TransportMeters stomp;
+    private final TransportMeters raw;
+
+    public WebSocketTrafficMetrics(MeterRegistry meterRegistry) {
+        this.stomp = new TransportMeters(meterRegistry, "stomp");
+        this.raw = new TransportMeters(meterRegistry, "raw");
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                TransportMeters meters = metersFor(session);
+                meters.sessions.incrementAndGet();
+                super.afterConnectionEstablished(new CountingSession(session, meters));
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                metersFor(session).record(message, true);
+                super.handleMessage(session, message);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                metersFor(session).sessions.decrementAndGet();
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private TransportMeters metersFor(WebSocketSession session) {
+        return RawChatProtocolHandler.PROTOCOL.equals(session.getAcceptedProtocol()) ? raw : stomp;
+    }
+
+    private static final class CountingSession extends WebSocketSessionDecorator {
+
+        private final TransportMeters meters;
+
+        private CountingSession(WebSocketSession session, TransportMeters meters) {
+            super(session);
+            this.meters = meters;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            meters.record(message, false);
+            super.sendMessage(message);
+        }
+    }
+
+    private static final class TransportMeters {
+
+        private final Counter framesIn;
+        private final Counter framesOut;
+        private final Counter bytesIn;
+        private final Counter bytesOut;
+        private final AtomicInteger sessions = new AtomicInteger();
+
+        private TransportMeters(MeterRegistry registry, String transport) {
+            this.framesIn = counter(registry, "chat.ws.frames", transport, "in");
+            this.framesOut = counter(registry, "chat.ws.frames", transport, "out");
+            this.bytesIn = counter(registry, "chat.ws.bytes", transport, "in");
+            this.bytesOut = counter(registry, "chat.ws.bytes", transport, "out");
+            registry.gauge("chat.ws.sessions", Tags.of("transport", transport), sessions);
+        }
+
+        private void record(WebSocketMessage<?> message, boolean inbound) {
+            (inbound ? framesIn : framesOut).increment();
+            (inbound ? bytesIn : bytesOut).increment(message.getPayloadLength());
+        }
+
+        private static Counter counter(MeterRegistry registry, String name, String transport, String direction) {
+            return Counter.builder(name)
+                    .tag("transport", transport)
+                    .tag("direction", direction)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.chatapp.backend.websocket.raw;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import org.springframework.web.socket.messaging.SubProtocolHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sub-protocol tối giản cho native client (WebSocket thuần, không SockJS/STOMP).
+ *
+ * Mỗi frame text: ký tự op + header (tới dấu xuống dòng đầu tiên) + body JSON.
+ * Client gửi:
+ *   c{token}[\n{content-type}]  kết nối (token JWT tùy chọn, giống header Authorization của STOMP CONNECT;
+ *                       content-type tùy chọn, ví dụ application/cbor để nhận message dạng CBOR)
+ *   s{destination}\n{json}  gửi tới /app/... (tương đương STOMP SEND)
+ *   +{id} {destination} [client] subscribe (client = bật ack), -{id} unsubscribe
+ *   a{chatId}           ack tin nhắn (subscription bật ack)
+ *   h                   heartbeat, gửi ít nhất mỗi {heartbeatMs} (mất 3 nhịp liên tiếp thì bị đóng)
+ * Server gửi:
+ *   c{sessionId}\n{heartbeatMs}  kết nối thành công, kèm chu kỳ heartbeat client phải gửi
+ *   m{subscriptionId}\n{json}  message (text frame); session chọn CBOR nhận binary frame
+ *                       cùng cấu trúc với body là CBOR
+ *   h                   heartbeat của server
+ *   !{lý do}            lỗi
+ *
+ * Frame được chuyển thành message STOMP tương ứng và đi qua clientInboundChannel,
+ * nên dùng chung interceptor, @MessageMapping, broker, user destination và room topic
+ * với đường /ws (STOMP).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RawChatProtocolHandler implements SubProtocolHandler {
+
+    public static final String PROTOCOL = "chat.min.v1";
+
+    private static final String CONNECTED_ATTRIBUTE = RawChatProtocolHandler.class.getName() + ".CONNECTED";
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Heartbeat 2 chiều như đường STOMP, để broker và presence sweep không coi session là chết
+    @Value("${chat.ws.heartbeat-ms:10000}")
+    private long heartbeatMillis;
+
+    // User gán bởi interceptor trong lúc xử lý CONNECT (ưu tiên hơn principal của handshake)
+    private final Map<String, Principal> authentications = new ConcurrentHashMap<>();
+
+    @Override
+    public List<String> getSupportedProtocols() {
+        return List.of(PROTOCOL);
+    }
+
+    @Override
+    public void handleMessageFromClient(WebSocketSession session, WebSocketMessage<?> message, MessageChannel outputChannel) {
+        if (!(message instanceof TextMessage textMessage)) {
+            sendError(session, "Chỉ hỗ trợ text frame");
+            return;
+        }
+
+        String frame = textMessage.getPayload();
+        if (frame.isEmpty()) {
+            return;
+        }
+
+        char op = frame.charAt(0);
+        int newline = frame.indexOf('\n');
+        String header = newline < 0 ? frame.substring(1) : frame.substring(1, newline);
+        byte[] body = newline < 0 ? new byte[0] : frame.substring(newline + 1).getBytes(StandardCharsets.UTF_8);
+
+        boolean connected = Boolean.TRUE.equals(session.getAttributes().get(CONNECTED_ATTRIBUTE));
+        if (op != 'c' && !connected) {
+            sendError(session, "Chưa kết nối");
+            return;
+        }
+
+        StompHeaderAccessor accessor;
+        switch (op) {
+            case 'c' -> {
+                accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+                accessor.setAcceptVersion("1.2");
+                accessor.setHeartbeat(heartbeatMillis, heartbeatMillis);
+                if (!header.isBlank()) {
+                    accessor.setNativeHeader("Authorization", "Bearer " + header.trim());
+                }
+                String contentType = new String(body, StandardCharsets.UTF_8).trim();
+                if (!contentType.isEmpty()) {
+                    accessor.setNativeHeader("content-type", contentType);
+                }
+                body = new byte[0];
+            }
+            case 's' -> {
+                accessor = StompHeaderAccessor.create(StompCommand.SEND);
+                accessor.setDestination(header.trim());
+                accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            }
+            case '+' -> {
+                String[] parts = header.trim().split(" ", 3);
+                if (parts.length < 2) {
+                    sendError(session, "Subscribe không hợp lệ");
+                    return;
+                }
+                accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+                accessor.setSubscriptionId(parts[0]);
+                accessor.setDestination(parts[1]);
+                if (parts.length == 3) {
+                    accessor.setAck(parts[2]);
+                }
+            }
+            case '-' -> {
+                accessor = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+                accessor.setSubscriptionId(header.trim());
+            }
+            case 'a' -> {
+                accessor = StompHeaderAccessor.create(StompCommand.ACK);
+                accessor.setNativeHeader("id", header.trim());
+            }
+            case 'h' -> accessor = StompHeaderAccessor.createForHeartbeat();
+            default -> {
+                sendError(session, "Op không hợp lệ: " + op);
+                return;
+            }
+        }
+
+        fillSessionHeaders(accessor, session);
+        accessor.setUserChangeCallback(user -> {
+            if (user != null && user != session.getPrincipal()) {
+                authentications.put(session.getId(), user);
+            }
+        });
+        Message<byte[]> inbound = MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+
+        try {
+            if (op == 'c') {
+                publishEvent(new SessionConnectEvent(this, inbound, getUser(session)));
+            }
+            boolean sent = outputChannel.send(inbound);
+            if (sent) {
+                if (op == '+') {
+                    publishEvent(new SessionSubscribeEvent(this, inbound, getUser(session)));
+                } else if (op == '-') {
+                    publishEvent(new SessionUnsubscribeEvent(this, inbound, getUser(session)));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to handle raw frame '{}' from session {}: {}", op, session.getId(), e.getMessage());
+            sendError(session, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            if (op == 'c') {
+                closeQuietly(session, CloseStatus.POLICY_VIOLATION);
+            }
+        }
+    }
+
+    @Override
+    public void handleMessageToClient(WebSocketSession session, Message<?> message) {
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (messageType == null) {
+            return;
+        }
+
+        switch (messageType) {
+            case CONNECT_ACK -> {
+                session.getAttributes().put(CONNECTED_ATTRIBUTE, Boolean.TRUE);
+                Message<byte[]> connected = MessageBuilder.createMessage(new byte[0], message.getHeaders());
+                publishEvent(new SessionConnectedEvent(this, connected, getUser(session)));
+                long[] heartbeat = SimpMessageHeaderAccessor.getHeartbeat(message.getHeaders());
+                send(session, "c" + session.getId() + "\n" + (heartbeat != null ? heartbeat[1] : 0));
+            }
+            case MESSAGE -> {
+                if (message.getPayload() instanceof byte[] payload) {
+                    String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+                    if (isText(message.getHeaders())) {
+                        send(session, "m" + subscriptionId + "\n" + new String(payload, StandardCharsets.UTF_8));
+                    } else {
+                        byte[] prefix = ("m" + subscriptionId + "\n").getBytes(StandardCharsets.UTF_8);
+                        send(session, new BinaryMessage(ByteBuffer.allocate(prefix.length + payload.length)
+                                .put(prefix).put(payload).flip()));
+                    }
+                }
+            }
+            case HEARTBEAT -> send(session, "h");
+            case DISCONNECT_ACK -> closeQuietly(session, CloseStatus.NORMAL);
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public String resolveSessionId(Message<?> message) {
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    }
+
+    @Override
+    public void afterSessionStarted(WebSocketSession session, MessageChannel outputChannel) {
+        log.debug("Raw protocol session started: {}", session.getId());
+    }
+
+    @Override
+    public void afterSessionEnded(WebSocketSession session, CloseStatus closeStatus, MessageChannel outputChannel) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        fillSessionHeaders(accessor, session);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+        try {
+            publishEvent(new SessionDisconnectEvent(this, message, session.getId(), closeStatus, getUser(session)));
+            outputChannel.send(message);
+        } finally {
+            authentications.remove(session.getId());
+        }
+    }
+
+    private void fillSessionHeaders(StompHeaderAccessor accessor, WebSocketSession session) {
+        accessor.setSessionId(session.getId());
+        accessor.setSessionAttributes(session.getAttributes());
+        accessor.setUser(getUser(session));
+        accessor.setLeaveMutable(true);
+    }
+
+    private Principal getUser(WebSocketSession session) {
+        Principal user = authentications.get(session.getId());
+        return user != null ? user : session.getPrincipal();
+    }
+
+    private void publishEvent(ApplicationEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (Throwable ex) {
+            log.error("Error publishing {}", event, ex);
+        }
+    }
+
+    private void sendError(WebSocketSession session, String reason) {
+        send(session, "!" + (reason != null ? reason : ""));
+    }
+
+    // Payload JSON / text đi text frame; CBOR và các dạng byte khác đi binary frame
+    private static boolean isText(MessageHeaders headers) {
+        Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        if (contentType == null) {
+            return true;
+        }
+        MimeType mimeType = contentType instanceof MimeType mt ? mt : MimeTypeUtils.parseMimeType(contentType.toString());
+        return "text".equals(mimeType.getType()) || MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(mimeType);
+    }
+
+    private void send(WebSocketSession session, String frame) {
+        send(session, new TextMessage(frame));
+    }
+
+    private void send(WebSocketSession session, WebSocketMessage<?> frame) {
+        try {
+            session.sendMessage(frame);
+        } catch (IOException e) {
+            log.warn("Failed to send raw frame to session {}: {}", session.getId(), e.getMessage());
+            closeQuietly(session, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Failed to close raw session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.chatapp.backend.websocket.raw;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * Gắn RawChatProtocolHandler vào cùng SubProtocolWebSocketHandler với STOMP.
+ *
+ * Client chọn protocol qua header Sec-WebSocket-Protocol; khi không chỉ định
+ * (SockJS, client STOMP cũ) vẫn mặc định dùng STOMP.
+ */
+@Component
+@Slf4j
+public class RawProtocolRegistrar implements SmartInitializingSingleton {
+
+    private final WebSocketHandler webSocketHandler;
+    private final RawChatProtocolHandler rawChatProtocolHandler;
+
+    public RawProtocolRegistrar(@Qualifier("subProtocolWebSocketHandler") WebSocketHandler webSocketHandler,
+                                RawChatProtocolHandler rawChatProtocolHandler) {
+        this.webSocketHandler = webSocketHandler;
+        this.rawChatProtocolHandler = rawChatProtocolHandler;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!(WebSocketHandlerDecorator.unwrap(webSocketHandler) instanceof SubProtocolWebSocketHandler handler)) {
+            log.warn("SubProtocolWebSocketHandler not found, raw protocol {} is disabled", RawChatProtocolHandler.PROTOCOL);
+            return;
+        }
+
+        // Endpoint STOMP đã được đăng ký trước đó: giữ STOMP làm mặc định
+        for (SubProtocolHandler protocolHandler : handler.getProtocolHandlers()) {
+            if (protocolHandler instanceof StompSubProtocolHandler) {
+                handler.setDefaultProtocolHandler(protocolHandler);
+                break;
+            }
+        }
+        handler.addProtocolHandler(rawChatProtocolHandler);
+        log.info("Registered raw WebSocket protocol {}", RawChatProtocolHandler.PROTOCOL);
+    }
+}
@@ -0,0 +1,228 @@
+package com.chatapp.backend.websocket.service;
+
+import com.chatapp.backend.chat.service.RoomMembershipIndex;
+import com.chatapp.backend.websocket.dto.ChatMessage;
+import com.chatapp.backend.websocket.dto.TypingDigest;
+import com.chatapp.backend.websocket.support.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Theo dõi trạng thái typing theo (sender, cuộc trò chuyện).
+ *
+ * - Private chat: chỉ forward TYPING khi bắt đầu gõ hoặc sau mỗi khoảng throttle,
+ *   bỏ qua các frame lặp lại do mỗi phím bấm.
+ * - Room: không gửi frame riêng lẻ, gom lại thành digest định kỳ tới /topic/room/{id}.
+ *   Chỉ thành viên phòng mới được theo dõi, frame từ user ngoài phòng bị bỏ qua.
+ * - State không được làm mới sẽ tự hết hạn qua timing wheel (tương đương STOP_TYPING).
+ */
+@Service
+@RequiredArgsConstructor
+public class TypingStateTracker {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomMembershipIndex membershipIndex;
+
+    @Value("${chat.typing.throttle-ms:3000}")
+    private long throttleMillis;
+
+    @Value("${chat.typing.ttl-ms:6000}")
+    private long ttlMillis;
+
+    @Value("${chat.typing.tick-ms:250}")
+    private long tickMillis;
+
+    private final Map<TypingKey, TypingState> states = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<UUID, String>> roomTypers = new ConcurrentHashMap<>();
+    private final Set<UUID> dirtyRooms = ConcurrentHashMap.newKeySet();
+    private TimingWheel<TypingKey> wheel;
+
+    @PostConstruct
+    void init() {
+        int wheelSize = (int) (ttlMillis / tickMillis) + 2;
+        wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Xử lý frame TYPING từ client
+     */
+    public void onTyping(ChatMessage chatMessage) {
+        TypingKey key = TypingKey.of(chatMessage);
+        if (key == null || !canTrack(key)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        String username = chatMessage.getSenderUsername();
+        boolean[] forward = new boolean[1];
+
+        // roomTypers cập nhật trong cùng compute với states: clear() của cùng key chạy tuần tự
+        // với đoạn này nên không thể để lại typer đã hết hạn trong room
+        states.compute(key, (k, state) -> {
+            if (state == null) {
+                forward[0] = true;
+                if (k.roomId() != null) {
+                    addRoomTyper(k, username);
+                }
+                return new TypingState(username, now);
+            }
+            if (now - state.lastForwardedAt >= throttleMillis) {
+                forward[0] = true;
+                state.lastForwardedAt = now;
+            }
+            return state;
+        });
+        wheel.schedule(key, now, ttlMillis);
+
+        if (key.roomId() == null && forward[0]) {
+            sendPrivate(key, ChatMessage.MessageType.TYPING, username);
+        }
+    }
+
+    /**
+     * Xử lý frame STOP_TYPING từ client
+     */
+    public void onStopTyping(ChatMessage chatMessage) {
+        TypingKey key = TypingKey.of(chatMessage);
+        if (key != null && canTrack(key)) {
+            wheel.cancel(key);
+            clear(key, true);
+        }
+    }
+
+    /**
+     * User đã gửi tin nhắn → xóa trạng thái typing mà không gửi STOP_TYPING riêng
+     * (client nhận tin nhắn là đủ để ẩn indicator)
+     */
+    public void onMessageSent(UUID senderId, UUID receiverId, UUID roomId) {
+        TypingKey key = TypingKey.of(senderId, receiverId, roomId);
+        if (key != null) {
+            wheel.cancel(key);
+            clear(key, false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.typing.tick-ms:250}")
+    public void expireStaleStates() {
+        wheel.advance(System.currentTimeMillis(), key -> clear(key, true));
+    }
+
+    /**
+     * Gửi digest cho các room có thay đổi kể từ lần gửi trước
+     */
+    @Scheduled(fixedDelayString = "${chat.typing.digest-interval-ms:1000}")
+    public void flushRoomDigests() {
+        for (UUID roomId : dirtyRooms) {
+            dirtyRooms.remove(roomId);
+
+            List<TypingDigest.Typer> typers = new ArrayList<>();
+            Map<UUID, String> current = roomTypers.get(roomId);
+            if (current != null) {
+                current.forEach((userId, username) -> typers.add(TypingDigest.Typer.builder()
+                        .userId(userId)
+                        .username(username)
+                        .build()));
+            }
+
+            messagingTemplate.convertAndSend("/topic/room/" + roomId, TypingDigest.builder()
+                    .roomId(roomId)
+                    .typers(typers)
+                    .build());
+        }
+    }
+
+    // Typing trong room chỉ tính cho thành viên, tra qua index membership như SUBSCRIBE
+    private boolean canTrack(TypingKey key) {
+        return key.roomId() == null || membershipIndex.isMember(key.roomId(), key.senderId());
+    }
+
+    private void clear(TypingKey key, boolean notify) {
+        TypingState[] removed = new TypingState[1];
+        states.computeIfPresent(key, (k, state) -> {
+            removed[0] = state;
+            if (k.roomId() != null) {
+                removeRoomTyper(k);
+            }
+            return null;
+        });
+
+        if (removed[0] != null && key.roomId() == null && notify) {
+            sendPrivate(key, ChatMessage.MessageType.STOP_TYPING, removed[0].username);
+        }
+    }
+
+    // compute trên roomTypers: thêm/xóa nguyên tử với việc bỏ map rỗng của room
+    private void addRoomTyper(TypingKey key, String username) {
+        roomTypers.compute(key.roomId(), (id, typers) -> {
+            Map<UUID, String> target = typers != null ? typers : new ConcurrentHashMap<>();
+            target.put(key.senderId(), username != null ? username : "");
+            return target;
+        });
+        dirtyRooms.add(key.roomId());
+    }
+
+    private void removeRoomTyper(TypingKey key) {
+        roomTypers.computeIfPresent(key.roomId(), (id, typers) -> {
+            if (typers.remove(key.senderId()) != null) {
+                dirtyRooms.add(id);
+            }
+            return typers.isEmpty() ? null : typers;
+        });
+    }
+
+    private void sendPrivate(TypingKey key, ChatMessage.MessageType type, String username) {
+        messagingTemplate.convertAndSendToUser(
+                key.receiverId().toString(),
+                "/queue/typing",
+                ChatMessage.builder()
+                        .type(type)
+                        .senderId(key.senderId())
+                        .senderUsername(username)
+                        .build()
+        );
+    }
+
+    private static final class TypingState {
+        private final String username;
+        private volatile long lastForwardedAt;
+
+        private TypingState(String username, long lastForwardedAt) {
+            this.username = username;
+            this.lastForwardedAt = lastForwardedAt;
+        }
+    }
+
+    /**
+     * Khóa (sender, cuộc trò chuyện): receiverId cho private chat, roomId cho group chat
+     */
+    record TypingKey(UUID senderId, UUID receiverId, UUID roomId) {
+
+        static TypingKey of(ChatMessage chatMessage) {
+            return of(chatMessage.getSenderId(), chatMessage.getReceiverId(), chatMessage.getRoomId());
+        }
+
+        static TypingKey of(UUID senderId, UUID receiverId, UUID roomId) {
+            if (senderId == null) {
+                return null;
+            }
+            if (receiverId != null) {
+                return new TypingKey(senderId, receiverId, null);
+            }
+            if (roomId != null) {
+                return new TypingKey(senderId, null, roomId);
+            }
+            return null;
+        }
+    }
+}
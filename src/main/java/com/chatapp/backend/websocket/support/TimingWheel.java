@@ -0,0 +1,93 @@
+package com.chatapp.backend.websocket.support;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Timing wheel đơn giản để hết hạn các key sau một khoảng thời gian.
+ *
+ * Mỗi key chỉ giữ một deadline; schedule lại cùng key sẽ ghi đè deadline cũ
+ * (entry cũ trong bucket trước bị bỏ qua khi tới lượt). Chi phí schedule và
+ * hết hạn là O(1) cho mỗi key, không cần quét toàn bộ state.
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final Set<K>[] buckets;
+    private final Map<K, Long> deadlines = new ConcurrentHashMap<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMillis phải > 0 và wheelSize phải > 1");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new Set[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Đặt (hoặc gia hạn) deadline cho key. Delay vượt quá chu kỳ wheel sẽ bị
+     * cắt về chu kỳ tối đa.
+     */
+    public void schedule(K key, long nowMillis, long delayMillis) {
+        long maxDelay = tickMillis * (buckets.length - 1);
+        long deadline = nowMillis + Math.min(Math.max(delayMillis, tickMillis), maxDelay);
+        deadlines.put(key, deadline);
+        buckets[bucketIndex(deadline / tickMillis)].add(key);
+    }
+
+    /**
+     * Hủy deadline của key (nếu có)
+     */
+    public boolean cancel(K key) {
+        return deadlines.remove(key) != null;
+    }
+
+    public boolean isScheduled(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Quay wheel tới thời điểm hiện tại và gọi onExpire cho các key đã hết hạn.
+     * Chỉ nên gọi từ một thread (scheduler).
+     */
+    public synchronized void advance(long nowMillis, Consumer<K> onExpire) {
+        long targetTick = nowMillis / tickMillis;
+        // Không cần quay quá một vòng: các bucket sẽ lặp lại
+        long fromTick = Math.max(currentTick, targetTick - buckets.length + 1);
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            Set<K> bucket = buckets[bucketIndex(tick)];
+            for (K key : bucket) {
+                Long deadline = deadlines.get(key);
+                if (deadline == null) {
+                    bucket.remove(key);
+                } else if (deadline <= nowMillis) {
+                    bucket.remove(key);
+                    if (deadlines.remove(key, deadline)) {
+                        onExpire.accept(key);
+                    }
+                } else if (bucketIndex(deadline / tickMillis) != bucketIndex(tick)) {
+                    // Key đã được gia hạn sang bucket khác
+                    bucket.remove(key);
+                }
+            }
+        }
+        // Bucket của tick hiện tại có thể còn key chưa tới hạn → quét lại lần sau
+        currentTick = targetTick;
+    }
+
+    private int bucketIndex(long tick) {
+        return (int) Math.floorMod(tick, (long) buckets.length);
+    }
+}
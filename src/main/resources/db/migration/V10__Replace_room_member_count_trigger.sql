@@ -0,0 +1,34 @@
+-- Migration: V10__Replace_room_member_count_trigger.sql
+-- Description: current_member_count do các câu lệnh membership trong RoomRepository cập nhật
+-- cùng lúc với room_members (join có điều kiện theo max_members). Trigger cũ cộng thêm một lần
+-- nữa cho mỗi dòng nên bỏ đi và tính lại các bộ đếm đã lệch
+
+DROP TRIGGER IF EXISTS update_room_member_count_trigger ON room_members;
+DROP FUNCTION IF EXISTS update_room_member_count();
+
+UPDATE rooms r
+SET current_member_count = c.member_count
+FROM (
+    SELECT r2.id, COUNT(rm.user_id) AS member_count
+    FROM rooms r2
+    LEFT JOIN room_members rm ON rm.room_id = r2.id
+    GROUP BY r2.id
+) c
+WHERE c.id = r.id AND r.current_member_count <> c.member_count;
+
+-- Xóa user xóa dây chuyền các dòng room_members mà không qua RoomRepository:
+-- trừ bộ đếm các phòng của user trước khi xóa
+CREATE OR REPLACE FUNCTION release_room_memberships()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE rooms
+    SET current_member_count = current_member_count - 1
+    WHERE id IN (SELECT room_id FROM room_members WHERE user_id = OLD.id);
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER release_room_memberships_trigger
+    BEFORE DELETE ON users
+    FOR EACH ROW
+    EXECUTE FUNCTION release_room_memberships();
@@ -0,0 +1,32 @@
+-- Migration: V11__Add_private_room_pair_key.sql
+-- Description: Khóa chuẩn hóa (pair_low, pair_high) = (LEAST, GREATEST) của hai user cho phòng PRIVATE.
+-- Unique index thay cho việc quét phòng PRIVATE bằng EXISTS và chặn tạo trùng phòng khi gọi đồng thời
+
+ALTER TABLE rooms ADD COLUMN pair_low UUID;
+ALTER TABLE rooms ADD COLUMN pair_high UUID;
+
+-- Gán khóa cho phòng PRIVATE hiện có đúng 2 thành viên; nếu một cặp đã bị tạo trùng
+-- thì chỉ phòng cũ nhất nhận khóa, các phòng còn lại giữ nguyên như phòng thường
+UPDATE rooms r
+SET pair_low = p.pair_low, pair_high = p.pair_high
+FROM (
+    SELECT id, pair_low, pair_high,
+           ROW_NUMBER() OVER (PARTITION BY pair_low, pair_high ORDER BY created_at, id) AS rn
+    FROM (
+        SELECT r2.id, r2.created_at,
+               (array_agg(rm.user_id ORDER BY rm.user_id))[1] AS pair_low,
+               (array_agg(rm.user_id ORDER BY rm.user_id))[2] AS pair_high
+        FROM rooms r2
+        JOIN room_members rm ON rm.room_id = r2.id
+        WHERE r2.room_type = 'PRIVATE'
+        GROUP BY r2.id, r2.created_at
+        HAVING COUNT(*) = 2
+    ) pairs
+) p
+WHERE p.id = r.id AND p.rn = 1;
+
+ALTER TABLE rooms ADD CONSTRAINT uq_rooms_private_pair UNIQUE (pair_low, pair_high);
+ALTER TABLE rooms ADD CONSTRAINT chk_rooms_private_pair CHECK (pair_low < pair_high);
+
+COMMENT ON COLUMN rooms.pair_low IS 'User id nhỏ hơn của phòng PRIVATE (NULL với phòng khác)';
+COMMENT ON COLUMN rooms.pair_high IS 'User id lớn hơn của phòng PRIVATE (NULL với phòng khác)';
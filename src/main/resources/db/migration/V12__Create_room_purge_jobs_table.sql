@@ -0,0 +1,24 @@
+-- Migration: V12__Create_room_purge_jobs_table.sql
+-- Description: Hàng đợi xóa dữ liệu của phòng đã bị xóa. messages.room_id không có FK nên
+-- tin nhắn phòng không bị xóa dây chuyền; job nền xóa dần theo từng chunk và lưu tiến độ tại đây
+
+CREATE TABLE room_purge_jobs (
+    room_id UUID PRIMARY KEY,
+    messages_deleted BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP(6)
+);
+
+CREATE INDEX idx_room_purge_jobs_pending ON room_purge_jobs(created_at) WHERE completed_at IS NULL;
+
+-- Tin nhắn mồ côi của các phòng đã xóa trước migration này
+INSERT INTO room_purge_jobs (room_id)
+SELECT DISTINCT m.room_id
+FROM messages m
+WHERE m.room_id IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM rooms r WHERE r.id = m.room_id);
+
+COMMENT ON TABLE room_purge_jobs IS 'Tiến độ xóa dữ liệu của phòng đã bị xóa';
+COMMENT ON COLUMN room_purge_jobs.messages_deleted IS 'Số tin nhắn đã xóa';
+COMMENT ON COLUMN room_purge_jobs.completed_at IS 'NULL khi còn dữ liệu cần xóa';
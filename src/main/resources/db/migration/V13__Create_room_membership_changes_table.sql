@@ -0,0 +1,15 @@
+-- Migration: V13__Create_room_membership_changes_table.sql
+-- Description: Nhật ký thay đổi membership để các instance khác bỏ entry tương ứng trong
+-- RoomMembershipIndex. Chỉ cần giữ trong thời gian ngắn, job dọn các dòng cũ
+
+CREATE TABLE room_membership_changes (
+    id BIGSERIAL PRIMARY KEY,
+    room_id UUID NOT NULL,
+    user_id UUID,
+    changed_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_room_membership_changes_changed_at ON room_membership_changes(changed_at);
+
+COMMENT ON TABLE room_membership_changes IS 'Thay đổi membership gần đây, dùng để đồng bộ cache giữa các instance';
+COMMENT ON COLUMN room_membership_changes.user_id IS 'User bị thay đổi; NULL khi cả phòng thay đổi (xóa phòng)';
@@ -0,0 +1,39 @@
+-- Migration: V14__Assign_profile_version_in_commit_order.sql
+-- Description: profile_version dùng làm cursor "since" nên phải được cấp theo thứ tự commit.
+-- Với nextval thuần, transaction lấy version 10 có thể commit sau transaction lấy version 11:
+-- client đã đọc 11 và dùng làm cursor sẽ bỏ sót 10 mãi mãi.
+-- Lấy advisory lock (giữ tới hết transaction) trước khi cấp version: transaction sau chỉ lấy
+-- được version khi transaction trước đã commit/rollback, nên mọi snapshot luôn thấy một dãy
+-- version liên tục từ đầu. Đổi username/avatar và tạo user đủ thưa để khóa này không nghẽn.
+
+CREATE OR REPLACE FUNCTION next_user_profile_version()
+RETURNS BIGINT AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('users.profile_version'));
+    RETURN nextval('user_profile_version_seq');
+END;
+$$ language 'plpgsql';
+
+CREATE OR REPLACE FUNCTION bump_user_profile_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        NEW.profile_version = next_user_profile_version();
+    ELSIF NEW.username IS DISTINCT FROM OLD.username OR NEW.avatar IS DISTINCT FROM OLD.avatar THEN
+        NEW.profile_version = next_user_profile_version();
+    ELSE
+        NEW.profile_version = OLD.profile_version;
+    END IF;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+-- Version khi tạo user cũng đi qua trigger thay cho DEFAULT nextval
+ALTER TABLE users ALTER COLUMN profile_version SET DEFAULT 0;
+
+DROP TRIGGER IF EXISTS bump_users_profile_version ON users;
+
+CREATE TRIGGER bump_users_profile_version
+    BEFORE INSERT OR UPDATE ON users
+    FOR EACH ROW
+    EXECUTE FUNCTION bump_user_profile_version();
@@ -0,0 +1,29 @@
+-- Migration: V5__Add_profile_version_to_users.sql
+-- Description: Thêm profile_version cho users để client cache profile và chỉ lấy phần thay đổi
+-- Version được lấy từ sequence chung nên tăng đơn điệu trên toàn bảng (dùng làm cursor "since")
+
+CREATE SEQUENCE IF NOT EXISTS user_profile_version_seq;
+
+ALTER TABLE users ADD COLUMN profile_version BIGINT NOT NULL DEFAULT nextval('user_profile_version_seq');
+
+-- Tăng version khi thông tin hiển thị (username, avatar) thay đổi
+CREATE OR REPLACE FUNCTION bump_user_profile_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.username IS DISTINCT FROM OLD.username OR NEW.avatar IS DISTINCT FROM OLD.avatar THEN
+        NEW.profile_version = nextval('user_profile_version_seq');
+    ELSE
+        NEW.profile_version = OLD.profile_version;
+    END IF;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER bump_users_profile_version
+    BEFORE UPDATE ON users
+    FOR EACH ROW
+    EXECUTE FUNCTION bump_user_profile_version();
+
+CREATE INDEX idx_users_profile_version ON users(profile_version);
+
+COMMENT ON COLUMN users.profile_version IS 'Version của thông tin hiển thị (username, avatar), tăng mỗi lần thay đổi';
@@ -0,0 +1,24 @@
+-- Migration: V6__Create_device_sync_cursors_table.sql
+-- Description: Cursor đồng bộ tin nhắn theo thiết bị (sync khi reconnect)
+-- Cursor là cặp (created_at, message_id) của tin nhắn cuối cùng thiết bị đã nhận
+
+CREATE TABLE device_sync_cursors (
+    user_id UUID NOT NULL,
+    device_id VARCHAR(100) NOT NULL,
+    last_created_at TIMESTAMP(6) NOT NULL,
+    last_message_id UUID NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (user_id, device_id),
+    CONSTRAINT fk_device_sync_cursors_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Index keyset (created_at, id) cho từng nhánh của truy vấn sync
+CREATE INDEX idx_messages_receiver_created_id ON messages(receiver_id, created_at, id);
+CREATE INDEX idx_messages_sender_created_id ON messages(sender_id, created_at, id);
+CREATE INDEX idx_messages_room_created_id ON messages(room_id, created_at, id);
+
+COMMENT ON TABLE device_sync_cursors IS 'Vị trí đồng bộ tin nhắn của từng thiết bị';
+COMMENT ON COLUMN device_sync_cursors.device_id IS 'ID thiết bị do client sinh ra';
+COMMENT ON COLUMN device_sync_cursors.last_created_at IS 'created_at của tin nhắn cuối cùng đã nhận';
+COMMENT ON COLUMN device_sync_cursors.last_message_id IS 'ID của tin nhắn cuối cùng đã nhận';
@@ -0,0 +1,13 @@
+-- Migration: V7__Create_token_revocations_table.sql
+-- Description: Thu hồi token theo user: mọi token phát hành trước revoked_before bị từ chối
+-- Không có FK tới users để việc thu hồi vẫn còn hiệu lực sau khi user bị xóa
+
+CREATE TABLE token_revocations (
+    user_id UUID PRIMARY KEY,
+    revoked_before TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_token_revocations_revoked_before ON token_revocations(revoked_before);
+
+COMMENT ON TABLE token_revocations IS 'Mốc thu hồi token của từng user';
+COMMENT ON COLUMN token_revocations.revoked_before IS 'Token có iat trước mốc này bị coi là đã thu hồi';
@@ -0,0 +1,22 @@
+-- Migration: V8__Create_refresh_tokens_table.sql
+-- Description: Refresh token theo họ (family): mỗi lần refresh xoay sang token mới cùng họ,
+-- dùng lại token đã xoay (reuse) sẽ thu hồi cả họ
+
+CREATE TABLE refresh_tokens (
+    id UUID PRIMARY KEY,
+    family_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    used_at TIMESTAMP(6),
+    revoked_at TIMESTAMP(6),
+    created_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_refresh_tokens_family_id ON refresh_tokens(family_id);
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens(expires_at);
+CREATE INDEX idx_refresh_tokens_revoked_at ON refresh_tokens(revoked_at) WHERE revoked_at IS NOT NULL;
+
+COMMENT ON TABLE refresh_tokens IS 'Refresh token đã phát hành (id = claim jti)';
+COMMENT ON COLUMN refresh_tokens.family_id IS 'Họ token bắt đầu từ một lần đăng nhập (claim fid)';
+COMMENT ON COLUMN refresh_tokens.used_at IS 'Thời điểm token được xoay; dùng lại sau mốc này là reuse';
+COMMENT ON COLUMN refresh_tokens.revoked_at IS 'Thời điểm cả họ bị thu hồi (logout hoặc phát hiện reuse)';
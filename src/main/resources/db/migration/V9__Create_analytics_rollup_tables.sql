@@ -0,0 +1,31 @@
+-- Migration: V9__Create_analytics_rollup_tables.sql
+-- Description: Bảng tổng hợp cho thống kê admin, cập nhật tăng dần bởi job theo watermark
+-- thay vì COUNT trực tiếp trên messages. Không có FK để số liệu còn lại sau khi xóa room/user
+
+-- Số tin nhắn theo room theo giờ; tin nhắn 1-1 gom vào room_id = nil UUID
+CREATE TABLE message_hourly_rollups (
+    bucket_hour TIMESTAMP(6) NOT NULL,
+    room_id UUID NOT NULL,
+    message_count BIGINT NOT NULL,
+    PRIMARY KEY (bucket_hour, room_id)
+);
+
+CREATE INDEX idx_message_hourly_rollups_room ON message_hourly_rollups(room_id, bucket_hour);
+
+-- User đã gửi ít nhất một tin nhắn trong ngày
+CREATE TABLE daily_active_users (
+    day DATE NOT NULL,
+    user_id UUID NOT NULL,
+    PRIMARY KEY (day, user_id)
+);
+
+-- Mốc created_at đã tổng hợp tới (không bao gồm) cho từng rollup
+CREATE TABLE rollup_watermarks (
+    name VARCHAR(50) PRIMARY KEY,
+    processed_until TIMESTAMP(6) NOT NULL
+);
+
+COMMENT ON TABLE message_hourly_rollups IS 'Số tin nhắn đã gửi theo room theo giờ';
+COMMENT ON COLUMN message_hourly_rollups.room_id IS 'Room nhận tin; 00000000-0000-0000-0000-000000000000 cho tin nhắn 1-1';
+COMMENT ON TABLE daily_active_users IS 'User hoạt động (có gửi tin) theo ngày';
+COMMENT ON TABLE rollup_watermarks IS 'Tiến độ của job tổng hợp';
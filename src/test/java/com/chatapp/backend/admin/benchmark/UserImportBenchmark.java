@@ -0,0 +1,113 @@
+package com.chatapp.backend.admin.benchmark;
+
+import com.chatapp.backend.admin.user.service.UserImportService;
+import com.chatapp.backend.auth.crypto.ParallelPasswordHasher;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Đo throughput import user theo từng bước:
+ * - hash mật khẩu: tuần tự (như createUser từng dòng) so với ParallelPasswordHasher,
+ * - insert (khi truyền JDBC url): từng dòng một transaction so với
+ *   UserImportService.INSERT_SQL theo JDBC batch, mỗi batch một transaction như service.
+ *
+ * Phần insert cần PostgreSQL đã chạy migration; user tạo ra được xóa khi kết thúc.
+ * Không chạy cùng test suite, chạy thủ công:
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.chatapp.backend.admin.benchmark.UserImportBenchmark \
+ *     -Dexec.args="2000 10 jdbc:postgresql://localhost:5432/chatapp admin 123456 500"
+ */
+public class UserImportBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int strength = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        List<String> passwords = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            passwords.add("password-" + i);
+        }
+
+        BCryptPasswordEncoder sequential = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        for (String password : passwords) {
+            sequential.encode(password);
+        }
+        report("hash sequential", rows, System.nanoTime() - start);
+
+        List<String> hashes;
+        ParallelPasswordHasher hasher = new ParallelPasswordHasher(strength, 0);
+        try {
+            start = System.nanoTime();
+            hashes = hasher.encodeAll(passwords);
+            report("hash parallel (" + hasher.getParallelism() + " threads)", rows, System.nanoTime() - start);
+
+            ParallelPasswordHasher allCores = new ParallelPasswordHasher(strength,
+                    Runtime.getRuntime().availableProcessors());
+            start = System.nanoTime();
+            allCores.encodeAll(passwords);
+            report("hash parallel (" + allCores.getParallelism() + " threads)", rows, System.nanoTime() - start);
+            allCores.destroy();
+        } finally {
+            hasher.destroy();
+        }
+
+        if (args.length > 2) {
+            String username = args.length > 3 ? args[3] : "admin";
+            String password = args.length > 4 ? args[4] : "123456";
+            int batchSize = args.length > 5 ? Integer.parseInt(args[5]) : 500;
+            benchmarkInsert(args[2], username, password, hashes, batchSize);
+        }
+    }
+
+    private static void benchmarkInsert(String url, String username, String password, List<String> hashes, int batchSize) {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            String prefix = "import-" + UUID.randomUUID().toString().substring(0, 8);
+            try {
+                List<Object[]> single = rows(prefix + "-s", hashes);
+                long start = System.nanoTime();
+                for (Object[] row : single) {
+                    transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(UserImportService.INSERT_SQL, row));
+                }
+                report("insert row by row", single.size(), System.nanoTime() - start);
+
+                List<Object[]> batched = rows(prefix + "-b", hashes);
+                start = System.nanoTime();
+                for (int from = 0; from < batched.size(); from += batchSize) {
+                    List<Object[]> batch = batched.subList(from, Math.min(from + batchSize, batched.size()));
+                    transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UserImportService.INSERT_SQL, batch));
+                }
+                report("insert batch of " + batchSize, batched.size(), System.nanoTime() - start);
+            } finally {
+                jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", prefix + "-%");
+            }
+        }
+    }
+
+    private static List<Object[]> rows(String prefix, List<String> hashes) {
+        List<Object[]> rows = new ArrayList<>(hashes.size());
+        for (int i = 0; i < hashes.size(); i++) {
+            rows.add(new Object[]{UUID.randomUUID(), prefix + "-" + i, prefix + "-" + i + "@import.local",
+                    hashes.get(i), null, "USER"});
+        }
+        return rows;
+    }
+
+    private static void report(String name, int rows, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%s: %d rows in %.2f s, %.0f rows/s%n", name, rows, seconds, rows / seconds);
+    }
+}
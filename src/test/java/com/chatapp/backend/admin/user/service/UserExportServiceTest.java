@@ -0,0 +1,78 @@
+package com.chatapp.backend.admin.user.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Trung hòa công thức chỉ áp dụng cho CSV; NDJSON giữ nguyên giá trị user nhập
+ */
+class UserExportServiceTest {
+
+    private static final String ID = "6f1c1f7e-2a4b-4c39-9d0b-0a7d3e5f8c21";
+    private static final Timestamp CREATED_AT = Timestamp.valueOf(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+
+    private UserExportService exportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString("id")).thenReturn(ID);
+        when(resultSet.getString("username")).thenReturn("-abc");
+        when(resultSet.getString("email")).thenReturn("=cmd@example.com");
+        when(resultSet.getString("avatar")).thenReturn("@avatar");
+        when(resultSet.getString("role")).thenReturn("USER");
+        when(resultSet.getTimestamp("created_at")).thenReturn(CREATED_AT);
+        when(resultSet.getTimestamp("updated_at")).thenReturn(CREATED_AT);
+
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        exportService = new UserExportService(dataSource, mock(PlatformTransactionManager.class), 100);
+    }
+
+    @Test
+    void ndjsonKeepsValuesUnchanged() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = exportService.export(UserExportService.Format.NDJSON, output);
+
+        assertThat(rows).isEqualTo(1);
+        JsonNode user = new ObjectMapper().readTree(output.toString(StandardCharsets.UTF_8).trim());
+        assertThat(user.get("username").asText()).isEqualTo("-abc");
+        assertThat(user.get("email").asText()).isEqualTo("=cmd@example.com");
+        assertThat(user.get("avatar").asText()).isEqualTo("@avatar");
+    }
+
+    @Test
+    void csvNeutralizesFormulaCells() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.export(UserExportService.Format.CSV, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).startsWith(ID + ",'-abc,'=cmd@example.com,'@avatar,USER,");
+    }
+}
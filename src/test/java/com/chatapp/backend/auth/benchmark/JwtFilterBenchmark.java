@@ -0,0 +1,76 @@
+package com.chatapp.backend.auth.benchmark;
+
+import com.chatapp.backend.auth.jwt.JwtAuthenticationFilter;
+import com.chatapp.backend.auth.jwt.JwtService;
+import com.chatapp.backend.auth.security.RevokedFamilyRegistry;
+import com.chatapp.backend.auth.service.TokenRevocationService;
+import com.chatapp.backend.common.constants.AppConstants;
+import com.chatapp.backend.user.entity.Role;
+import com.chatapp.backend.user.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+/**
+ * Đo chi phí JwtAuthenticationFilter cho một request có Bearer token,
+ * so sánh khi tắt và bật cache token đã verify.
+ *
+ * Không chạy cùng test suite, chạy thủ công:
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.chatapp.backend.auth.benchmark.JwtFilterBenchmark
+ */
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int MEASURE_ITERATIONS = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        run("uncached", 0);
+        run("cached", 10_000);
+    }
+
+    private static void run(String name, int cacheSize) throws Exception {
+        JwtService jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", cacheSize);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService,
+                new TokenRevocationService(null, null), new RevokedFamilyRegistry(new SimpleMeterRegistry()));
+        String header = AppConstants.BEARER_PREFIX + jwtService.generateToken(User.builder()
+                .id(UUID.randomUUID())
+                .username("alice")
+                .role(Role.USER)
+                .build());
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            filterOnce(filter, header);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            filterOnce(filter, header);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%s: %.0f ns/request%n", name, (double) elapsed / MEASURE_ITERATIONS);
+    }
+
+    private static void filterOnce(JwtAuthenticationFilter filter, String header) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/messages/unread");
+        request.addHeader(AppConstants.AUTHORIZATION_HEADER, header);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            throw new IllegalStateException("Token không được chấp nhận");
+        }
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,148 @@
+package com.chatapp.backend.auth.service;
+
+import com.chatapp.backend.auth.dto.AuthResponse;
+import com.chatapp.backend.auth.dto.LoginRequest;
+import com.chatapp.backend.auth.dto.RefreshTokenRequest;
+import com.chatapp.backend.auth.entity.RefreshToken;
+import com.chatapp.backend.auth.jwt.JwtService;
+import com.chatapp.backend.auth.repository.RefreshTokenRepository;
+import com.chatapp.backend.auth.security.RevokedFamilyRegistry;
+import com.chatapp.backend.user.entity.Role;
+import com.chatapp.backend.user.entity.User;
+import com.chatapp.backend.user.repository.UserRepository;
+import com.chatapp.backend.user.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Login và refresh chỉ được tra user đúng một lần; refresh token được xoay vòng
+ * và dùng lại token đã xoay thì thu hồi cả họ
+ */
+class AuthenticationServiceTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+    private UserRepository userRepository;
+    private RefreshTokenRepository refreshTokenRepository;
+    private RevokedFamilyRegistry revokedFamilies;
+    private JwtService jwtService;
+    private AuthenticationService authenticationService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+
+        jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 86_400_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        UserService userService = new UserService(userRepository);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userService);
+        provider.setPasswordEncoder(passwordEncoder);
+
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        revokedFamilies = new RevokedFamilyRegistry(new SimpleMeterRegistry());
+        RefreshTokenService refreshTokenService = new RefreshTokenService(refreshTokenRepository, jwtService, revokedFamilies,
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(refreshTokenService, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshExpiration", 86_400_000L);
+
+        authenticationService = new AuthenticationService(userRepository, passwordEncoder, jwtService,
+                new ProviderManager(provider), new TokenRevocationService(null, null), refreshTokenService);
+
+        user = User.builder()
+                .id(UUID.randomUUID())
+                .username("alice")
+                .email("alice@example.com")
+                .password(passwordEncoder.encode("secret"))
+                .role(Role.USER)
+                .build();
+    }
+
+    @Test
+    void loginLooksUpUserOnce() {
+        when(userRepository.findByUsernameOrEmail("alice@example.com")).thenReturn(Optional.of(user));
+
+        LoginRequest request = new LoginRequest();
+        request.setUsernameOrEmail("alice@example.com");
+        request.setPassword("secret");
+        AuthResponse response = authenticationService.login(request);
+
+        assertThat(response.getUser().getId()).isEqualTo(user.getId());
+        verify(userRepository, times(1)).findByUsernameOrEmail("alice@example.com");
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void refreshLooksUpUserOnce() {
+        UUID familyId = UUID.randomUUID();
+        UUID tokenId = UUID.randomUUID();
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(refreshTokenRepository.markUsed(eq(tokenId), any())).thenReturn(1);
+
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(jwtService.generateRefreshToken(user, familyId, tokenId));
+        AuthResponse response = authenticationService.refreshToken(request);
+
+        assertThat(response.getUser().getUsername()).isEqualTo("alice");
+        assertThat(jwtService.familyId(jwtService.extractAllClaims(response.getRefreshToken()))).isEqualTo(familyId);
+        verify(userRepository, times(1)).findById(user.getId());
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void refreshRejectsAccessToken() {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(jwtService.generateToken(user, UUID.randomUUID()));
+
+        assertThatThrownBy(() -> authenticationService.refreshToken(request)).hasMessage("Invalid refresh token");
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void reusedRefreshTokenRevokesFamily() {
+        UUID familyId = UUID.randomUUID();
+        UUID tokenId = UUID.randomUUID();
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(refreshTokenRepository.markUsed(eq(tokenId), any())).thenReturn(0);
+        when(refreshTokenRepository.findById(tokenId)).thenReturn(Optional.of(RefreshToken.builder()
+                .id(tokenId)
+                .familyId(familyId)
+                .userId(user.getId())
+                .usedAt(LocalDateTime.now())
+                .build()));
+
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(jwtService.generateRefreshToken(user, familyId, tokenId));
+
+        assertThatThrownBy(() -> authenticationService.refreshToken(request)).isInstanceOf(RuntimeException.class);
+        verify(refreshTokenRepository).revokeFamily(eq(familyId), any());
+        assertThat(revokedFamilies.isRevoked(familyId)).isTrue();
+    }
+}
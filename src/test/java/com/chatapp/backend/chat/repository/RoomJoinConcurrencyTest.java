@@ -0,0 +1,129 @@
+package com.chatapp.backend.chat.repository;
+
+import com.chatapp.backend.chat.dto.JoinResult;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nhiều user cùng join một phòng có max_members, mỗi join là một lần chạy
+ * RoomRepository.JOIN_SQL trên connection riêng: đúng max_members lần JOINED, phần còn lại
+ * ROOM_FULL, current_member_count khớp số dòng room_members.
+ *
+ * Chạy trên PostgreSQL thật (Testcontainers) với đủ migration; bỏ qua khi không có Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RoomJoinConcurrencyTest {
+
+    private static final int JOINERS = 2000;
+    private static final int MAX_MEMBERS = 500;
+    private static final int THREADS = 64;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        dataSource.setMaximumPoolSize(THREADS);
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    void concurrentJoinsNeverExceedMaxMembers() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<UUID> userIds = createUsers(jdbcTemplate, JOINERS + 1);
+        UUID creatorId = userIds.remove(0);
+        UUID roomId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO rooms (id, name, room_type, created_by, max_members) VALUES (?, ?, 'GROUP', ?, ?)",
+                roomId, "join-" + roomId, creatorId, MAX_MEMBERS);
+
+        Map<JoinResult, Integer> results = joinConcurrently(new NamedParameterJdbcTemplate(dataSource), roomId, userIds);
+
+        assertThat(results.getOrDefault(JoinResult.JOINED, 0)).isEqualTo(MAX_MEMBERS);
+        assertThat(results.getOrDefault(JoinResult.ROOM_FULL, 0)).isEqualTo(JOINERS - MAX_MEMBERS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM room_members WHERE room_id = ?", Integer.class, roomId))
+                .isEqualTo(MAX_MEMBERS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT current_member_count FROM rooms WHERE id = ?", Integer.class, roomId))
+                .isEqualTo(MAX_MEMBERS);
+    }
+
+    private static List<UUID> createUsers(JdbcTemplate jdbcTemplate, int count) {
+        List<UUID> ids = new ArrayList<>(count);
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            rows.add(new Object[]{id, "joiner-" + i, "joiner-" + i + "@test.local", "x"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, email, password) VALUES (?, ?, ?, ?)", rows);
+        return ids;
+    }
+
+    private static Map<JoinResult, Integer> joinConcurrently(NamedParameterJdbcTemplate jdbcTemplate, UUID roomId,
+                                                             List<UUID> userIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<JoinResult>> futures = new ArrayList<>(userIds.size());
+            for (UUID userId : userIds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    String result = jdbcTemplate.queryForObject(RoomRepository.JOIN_SQL,
+                            new MapSqlParameterSource().addValue("roomId", roomId).addValue("userId", userId),
+                            String.class);
+                    return JoinResult.valueOf(result);
+                }));
+            }
+
+            start.countDown();
+            Map<JoinResult, Integer> results = new EnumMap<>(JoinResult.class);
+            for (Future<JoinResult> future : futures) {
+                results.merge(future.get(60, TimeUnit.SECONDS), 1, Integer::sum);
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
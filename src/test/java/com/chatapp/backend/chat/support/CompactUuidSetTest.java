@@ -0,0 +1,101 @@
+package com.chatapp.backend.chat.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * add/remove/contains khớp với HashSet qua nhiều lần resize, và xóa backward-shift giữ
+ * nguyên chuỗi dò kể cả khi chuỗi vòng qua cuối mảng
+ */
+class CompactUuidSetTest {
+
+    // new CompactUuidSet() bắt đầu với 8 slot và chỉ resize khi vượt 6 phần tử
+    private static final int INITIAL_CAPACITY = 8;
+
+    @Test
+    void matchesHashSetAcrossResizes() {
+        Random random = new Random(42);
+        CompactUuidSet set = new CompactUuidSet();
+        Set<UUID> expected = new HashSet<>();
+        List<UUID> added = new ArrayList<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            assertThat(set.add(id)).isTrue();
+            expected.add(id);
+            added.add(id);
+            assertThat(set.add(id)).isFalse();
+
+            if (i % 3 == 0) {
+                UUID removed = added.get(random.nextInt(added.size()));
+                assertThat(set.remove(removed)).isEqualTo(expected.remove(removed));
+            }
+        }
+
+        assertThat(set.size()).isEqualTo(expected.size());
+        assertThat(set.toList()).containsExactlyInAnyOrderElementsOf(expected);
+        for (UUID id : added) {
+            assertThat(set.contains(id)).isEqualTo(expected.contains(id));
+        }
+        assertThat(set.contains(new UUID(random.nextLong(), random.nextLong()))).isFalse();
+    }
+
+    @Test
+    void removeKeepsProbeChainsThatWrapAround() {
+        // Bốn id cùng home ở slot cuối chiếm slot 7, 0, 1, 2; id home 0 bị đẩy sang slot 3
+        List<UUID> tail = idsWithHome(INITIAL_CAPACITY - 1, 4);
+        UUID head = idsWithHome(0, 1).get(0);
+
+        for (int first = 0; first < tail.size(); first++) {
+            CompactUuidSet set = new CompactUuidSet();
+            Set<UUID> expected = new HashSet<>(tail);
+            expected.add(head);
+            tail.forEach(set::add);
+            set.add(head);
+
+            // Xóa lần lượt bắt đầu từ các vị trí khác nhau trong chuỗi
+            for (int i = 0; i < tail.size(); i++) {
+                UUID removed = tail.get((first + i) % tail.size());
+                assertThat(set.remove(removed)).isTrue();
+                expected.remove(removed);
+
+                assertThat(set.contains(removed)).isFalse();
+                for (UUID id : expected) {
+                    assertThat(set.contains(id)).isTrue();
+                }
+                assertThat(set.size()).isEqualTo(expected.size());
+            }
+            assertThat(set.toList()).containsExactly(head);
+        }
+    }
+
+    @Test
+    void rejectsNilUuid() {
+        assertThatThrownBy(() -> new CompactUuidSet().add(new UUID(0L, 0L)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<UUID> idsWithHome(int home, int count) {
+        Random random = new Random(home);
+        List<UUID> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            int hash = ReflectionTestUtils.invokeMethod(CompactUuidSet.class, "hash",
+                    id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if ((hash & (INITIAL_CAPACITY - 1)) == home) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
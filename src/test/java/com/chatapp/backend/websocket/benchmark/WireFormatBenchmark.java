@@ -0,0 +1,155 @@
+package com.chatapp.backend.websocket.benchmark;
+
+import com.chatapp.backend.chat.entity.Message;
+import com.chatapp.backend.websocket.converter.CborMessageConverter;
+import com.chatapp.backend.websocket.converter.WireFormatJsonMessageConverter;
+import com.chatapp.backend.websocket.dto.ChatMessage;
+import com.chatapp.backend.websocket.interceptor.WireFormatChannelInterceptor;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Đo đúng đường gửi thực tế cho session JSON và CBOR: WireFormatJsonMessageConverter
+ * serialize ChatMessage một lần, rồi mỗi subscriber nhận một bản copy header (như simple
+ * broker) đi qua WireFormatChannelInterceptor. In số byte mỗi frame và thời gian trên
+ * mỗi lần gửi tới một subscriber.
+ *
+ * Chiều nhận: frame client gửi lên được decode thành ChatMessage bằng converter tương ứng
+ * (MappingJackson2 qua WireFormatJsonMessageConverter cho JSON, CborMessageConverter cho
+ * CBOR). In thời gian mỗi lần decode.
+ *
+ * Không chạy cùng test suite, chạy thủ công:
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.chatapp.backend.websocket.benchmark.WireFormatBenchmark \
+ *     -Dexec.args="50"
+ */
+public class WireFormatBenchmark {
+
+    private static final int WARMUP_BROADCASTS = 20_000;
+    private static final int MEASURE_BROADCASTS = 100_000;
+    private static final int WARMUP_DECODES = 200_000;
+    private static final int MEASURE_DECODES = 1_000_000;
+
+    private static final String JSON_SESSION = "json-session";
+    private static final String CBOR_SESSION = "cbor-session";
+
+    public static void main(String[] args) {
+        int subscribers = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        CborMessageConverter cborConverter = new CborMessageConverter();
+        WireFormatJsonMessageConverter converter = new WireFormatJsonMessageConverter(cborConverter.getCborMapper());
+        WireFormatChannelInterceptor interceptor = new WireFormatChannelInterceptor();
+        connect(interceptor, JSON_SESSION, null);
+        connect(interceptor, CBOR_SESSION, "application/cbor");
+
+        ChatMessage message = sampleMessage();
+        run("JSON", converter, interceptor, message, JSON_SESSION, subscribers);
+        run("CBOR", converter, interceptor, message, CBOR_SESSION, subscribers);
+
+        byte[] json = (byte[]) converter.toMessage(message, null).getPayload();
+        org.springframework.messaging.Message<byte[]> jsonFrame = inbound(json, MimeTypeUtils.APPLICATION_JSON);
+        org.springframework.messaging.Message<byte[]> cborFrame = inbound(new byte[0], CborMessageConverter.APPLICATION_CBOR);
+        byte[] cbor = (byte[]) cborConverter.toMessage(message, cborFrame.getHeaders()).getPayload();
+        decode("JSON", converter, jsonFrame);
+        decode("CBOR", cborConverter, inbound(cbor, CborMessageConverter.APPLICATION_CBOR));
+    }
+
+    private static void decode(String name, MessageConverter converter, org.springframework.messaging.Message<byte[]> frame) {
+        for (int i = 0; i < WARMUP_DECODES; i++) {
+            converter.fromMessage(frame, ChatMessage.class);
+        }
+
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_DECODES; i++) {
+            ChatMessage decoded = (ChatMessage) converter.fromMessage(frame, ChatMessage.class);
+            sink += decoded.getContent().length();
+        }
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("%s decode: %d bytes/frame, %.0f ns/decode%n",
+                name, frame.getPayload().length, (double) nanos / MEASURE_DECODES);
+        if (sink == 0) {
+            System.out.println("(empty content)");
+        }
+    }
+
+    // Frame SEND từ client: payload thô kèm content-type như StompSubProtocolHandler chuyển vào
+    private static org.springframework.messaging.Message<byte[]> inbound(byte[] payload, MimeType contentType) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setContentType(contentType);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static void run(String name, WireFormatJsonMessageConverter converter, WireFormatChannelInterceptor interceptor,
+                            ChatMessage message, String sessionId, int subscribers) {
+        for (int i = 0; i < WARMUP_BROADCASTS; i++) {
+            broadcast(converter, interceptor, message, sessionId, subscribers);
+        }
+
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_BROADCASTS; i++) {
+            sink += broadcast(converter, interceptor, message, sessionId, subscribers);
+        }
+        long nanos = System.nanoTime() - start;
+
+        long frames = (long) MEASURE_BROADCASTS * subscribers;
+        System.out.printf("%s: %d bytes/frame, %.0f ns/broadcast, %.0f ns/subscriber (%d subscribers)%n",
+                name, sink / frames, (double) nanos / MEASURE_BROADCASTS, (double) nanos / frames, subscribers);
+    }
+
+    // Một bài đăng: convert một lần, mỗi subscriber một bản copy header qua interceptor outbound
+    private static long broadcast(WireFormatJsonMessageConverter converter, WireFormatChannelInterceptor interceptor,
+                                  ChatMessage message, String sessionId, int subscribers) {
+        org.springframework.messaging.Message<?> converted = converter.toMessage(message, null);
+        long bytes = 0;
+        for (int i = 0; i < subscribers; i++) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId("sub-" + i);
+            accessor.copyHeadersIfAbsent(converted.getHeaders());
+            org.springframework.messaging.Message<?> sent = interceptor.preSend(
+                    MessageBuilder.createMessage(converted.getPayload(), accessor.getMessageHeaders()), null);
+            bytes += ((byte[]) sent.getPayload()).length;
+        }
+        return bytes;
+    }
+
+    private static void connect(WireFormatChannelInterceptor interceptor, String sessionId, String contentType) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (contentType != null) {
+            accessor.addNativeHeader("content-type", contentType);
+        }
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private static ChatMessage sampleMessage() {
+        LocalDateTime now = LocalDateTime.now();
+        return ChatMessage.builder()
+                .id(UUID.randomUUID())
+                .content("Chào bạn, tối nay mình họp lúc 8 giờ nhé!")
+                .senderId(UUID.randomUUID())
+                .senderUsername("nguyenvana")
+                .senderAvatar("https://cdn.example.com/avatars/nguyenvana.png")
+                .receiverId(UUID.randomUUID())
+                .receiverUsername("tranthib")
+                .receiverAvatar("https://cdn.example.com/avatars/tranthib.png")
+                .messageType(Message.MessageType.TEXT)
+                .isRead(false)
+                .createdAt(now)
+                .updatedAt(now)
+                .type(ChatMessage.MessageType.CHAT)
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.chatapp.backend.websocket.delivery;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Slot đã ack ở giữa ring không chiếm chỗ frame chưa ack; chỉ khi window đầy frame
+ * chưa ack thì frame chưa ack cũ nhất mới bị loại
+ */
+class UnackedWindowTest {
+
+    @Test
+    void outOfOrderAckFreesSlotWithoutEvicting() {
+        UnackedWindow window = new UnackedWindow(3);
+        window.add("a", frame("a"), 1);
+        window.add("b", frame("b"), 2);
+        window.add("c", frame("c"), 3);
+
+        assertThat(window.ack("b")).isNotNull();
+        assertThat(window.add("d", frame("d"), 4)).isNull();
+
+        assertThat(window.size()).isEqualTo(3);
+        assertThat(dueIds(window)).containsExactly("a", "c", "d");
+    }
+
+    @Test
+    void readdingSameIdRefreshesExistingSlot() {
+        UnackedWindow window = new UnackedWindow(2);
+        window.add("a", frame("a"), 1);
+        window.add("b", frame("b"), 2);
+
+        Message<?> resent = frame("a-resent");
+        assertThat(window.add("a", resent, 10)).isNull();
+
+        assertThat(window.size()).isEqualTo(2);
+        assertThat(dueIds(window)).containsExactly("a", "b");
+        UnackedWindow.Entry entry = window.ack("a");
+        assertThat(entry.message).isSameAs(resent);
+        assertThat(entry.sentAtNanos).isEqualTo(10);
+        assertThat(entry.firstSentAtNanos).isEqualTo(1);
+        assertThat(window.ack("a")).isNull();
+        assertThat(window.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsOldestUnackedWhenFull() {
+        UnackedWindow window = new UnackedWindow(3);
+        window.add("a", frame("a"), 1);
+        window.add("b", frame("b"), 2);
+        window.add("c", frame("c"), 3);
+        window.ack("b");
+        window.add("d", frame("d"), 4);
+
+        UnackedWindow.Entry evicted = window.add("e", frame("e"), 5);
+
+        assertThat(evicted.id).isEqualTo("a");
+        assertThat(window.ack("a")).isNull();
+        assertThat(dueIds(window)).containsExactly("c", "d", "e");
+    }
+
+    @Test
+    void ackedHeadAdvancesAcrossWrapAround() {
+        UnackedWindow window = new UnackedWindow(2);
+        for (int i = 0; i < 10; i++) {
+            String id = "m" + i;
+            assertThat(window.add(id, frame(id), i)).isNull();
+            assertThat(window.ack(id)).isNotNull();
+        }
+
+        assertThat(window.size()).isZero();
+        assertThat(dueIds(window)).isEmpty();
+    }
+
+    private static List<String> dueIds(UnackedWindow window) {
+        List<String> ids = new ArrayList<>();
+        window.forEachDue(Long.MAX_VALUE, entry -> ids.add(entry.id));
+        return ids;
+    }
+
+    private static Message<?> frame(String payload) {
+        return MessageBuilder.withPayload(payload).build();
+    }
+}